@@ -29,21 +29,30 @@ import com.dracade.ember.core.events.minigame.MinigameStartedEvent;
 import com.dracade.ember.core.events.minigame.MinigameStoppedEvent;
 import com.dracade.ember.core.events.minigame.MinigameStoppingEvent;
 import com.dracade.ember.system.Backup;
+import com.dracade.ember.system.BackupScheduler;
+import com.dracade.ember.system.BinarySerializer;
+import com.dracade.ember.system.Engine;
+import com.dracade.ember.system.Loader;
+import com.dracade.ember.system.Metrics;
+import com.dracade.ember.system.Registry;
+import com.dracade.ember.system.Rollback;
 import com.dracade.ember.system.Serializer;
+import com.dracade.ember.system.Worlds;
 import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
 import org.slf4j.Logger;
 import org.spongepowered.api.Game;
+import org.spongepowered.api.entity.living.player.Player;
 import org.spongepowered.api.event.Listener;
 import org.spongepowered.api.event.game.state.GameInitializationEvent;
+import org.spongepowered.api.event.game.state.GameStoppingServerEvent;
 import org.spongepowered.api.plugin.Plugin;
 import org.spongepowered.api.scheduler.Task;
+import org.spongepowered.api.world.Location;
 import org.spongepowered.api.world.World;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
@@ -63,10 +72,14 @@ public class Ember {
     // Singletons
     private static Ember instance;
     private static Serializer serializer;
+    private static BinarySerializer binarySerializer;
+    private static Loader loader;
     private static Backup backup;
-
-    // A map to store arenas and their games.
-    private static HashMap<Arena, Task> arenas;
+    private static Registry registry;
+    private static Worlds worlds;
+    private static Engine engine;
+    private static Rollback rollback;
+    private static BackupScheduler scheduler;
 
     /**
      * Ember constructor.
@@ -83,9 +96,38 @@ public class Ember {
     @Listener
     public void onInitialization(GameInitializationEvent event) {
         getLogger().info("[Ember]: Loading...");
-        Ember.arenas = new HashMap<Arena, Task>();
+        Ember.registry = Registry.instance();
+        Ember.worlds = Worlds.instance();
+        Ember.game().getEventManager().registerListeners(this, Ember.worlds);
+        Ember.engine = Engine.instance();
+        Ember.engine.start(this);
+        Ember.rollback = Rollback.instance();
+        Ember.rollback.start(this);
+        Ember.game().getEventManager().registerListeners(this, Ember.rollback);
         Ember.serializer = Serializer.instance();
+        Ember.binarySerializer = BinarySerializer.instance();
+        Ember.loader = Loader.instance();
         Ember.backup = Backup.instance("backups");
+        Ember.scheduler = BackupScheduler.instance();
+        Ember.scheduler.start(this);
+    }
+
+    /**
+     * This method is called when the server is stopping.
+     */
+    @Listener
+    public void onStopping(GameStoppingServerEvent event) {
+        Ember.engine.stop();
+        Ember.scheduler.stop();
+    }
+
+    /**
+     * Get the Ember plugin instance.
+     *
+     * @return Ember's plugin instance.
+     */
+    public static Ember instance() {
+        return Ember.instance;
     }
 
     /**
@@ -106,6 +148,24 @@ public class Ember {
         return Ember.serializer;
     }
 
+    /**
+     * Get the binary serializer.
+     *
+     * @return Ember's binary serialization manager.
+     */
+    public static BinarySerializer binarySerializer() {
+        return Ember.binarySerializer;
+    }
+
+    /**
+     * Get the bulk loader.
+     *
+     * @return Ember's bulk loader.
+     */
+    public static Loader loader() {
+        return Ember.loader;
+    }
+
     /**
      * Get the backup manager.
      *
@@ -115,6 +175,51 @@ public class Ember {
         return Ember.backup;
     }
 
+    /**
+     * Get the arena registry.
+     *
+     * @return Ember's arena registry.
+     */
+    public static Registry registry() {
+        return Ember.registry;
+    }
+
+    /**
+     * Get the world resolver.
+     *
+     * @return Ember's world resolver.
+     */
+    public static Worlds worlds() {
+        return Ember.worlds;
+    }
+
+    /**
+     * Get the shared engine.
+     *
+     * @return Ember's shared minigame engine.
+     */
+    public static Engine engine() {
+        return Ember.engine;
+    }
+
+    /**
+     * Get the arena rollback.
+     *
+     * @return Ember's arena rollback.
+     */
+    public static Rollback rollback() {
+        return Ember.rollback;
+    }
+
+    /**
+     * Get the backup scheduler.
+     *
+     * @return Ember's backup scheduler.
+     */
+    public static BackupScheduler scheduler() {
+        return Ember.scheduler;
+    }
+
     /**
      * Set the minigame to be played on an arena.
      *
@@ -133,6 +238,10 @@ public class Ember {
             Ember.unregister(arena);
         }
 
+        // Finish rolling back the arena's previous minigame, so the restored
+        // blocks don't overwrite the new one's.
+        Ember.rollback.finish(arena.getUniqueId());
+
         // If the minigame isn't null, then...
         if (minigame != null) {
             // We then register our new minigame to the EventHandler.
@@ -140,15 +249,23 @@ public class Ember {
                 Ember.game().getEventManager().registerListeners(Ember.instance, minigame);
             }
 
-            // We then create a new Task.
-            Task task = Ember.game().getScheduler().createTaskBuilder().name(arena.getName()).delay(minigame.delay(), TimeUnit.SECONDS)
-                    .interval(minigame.interval(), TimeUnit.SECONDS).execute(minigame).submit(Ember.instance);
+            // We then register the minigame with the engine, which schedules
+            // it on the shared task unless it needs its own.
+            Engine.Execution execution = Ember.engine.register(minigame);
+            Task task;
+
+            if (minigame.timing().isShared()) {
+                task = Ember.engine.getTask();
+            } else {
+                task = Ember.game().getScheduler().createTaskBuilder().name(arena.getName()).delay(minigame.delay(), TimeUnit.SECONDS)
+                        .interval(minigame.interval(), TimeUnit.SECONDS).execute(execution).submit(Ember.instance);
+            }
 
             // We then register the task to be executed on the specified arena.
-            Ember.arenas.put(arena, task);
+            Ember.registry.put(arena, minigame, task, execution);
 
             // Call an event so that the plugins know a minigame has started.
-            Ember.game().getEventManager().post(new MinigameStartedEvent(minigame));
+            execution.post(new MinigameStartedEvent(minigame));
         }
 
         // We return true to acknowledge the task has been registered
@@ -165,14 +282,17 @@ public class Ember {
      *         running minigame.
      */
     public static boolean unregister(Arena arena) throws Exception {
-        // Get the currently occupying Task.
-        Task task = Ember.arenas.get(arena);
+        // Get the currently occupying entry.
+        Optional<Registry.Entry> entry = Ember.registry.get(arena.getUniqueId());
+
+        // If the entry exists...
+        if (entry.isPresent()) {
+            Minigame minigame = entry.get().getMinigame();
+            Engine.Execution execution = entry.get().getExecution();
 
-        // If the task exists...
-        if (task != null) {
             // Call an event so that the plugins know a minigame is being
             // stopped.
-            boolean cancelled = Ember.game().getEventManager().post(new MinigameStoppingEvent((Minigame) task.getConsumer()));
+            boolean cancelled = execution.post(new MinigameStoppingEvent(minigame));
 
             if (cancelled)
                 throw new Exception("Unable to override the currently running minigame.");
@@ -180,22 +300,71 @@ public class Ember {
             // If the event isn't cancelled, we continue cancelling the
             // currently
             // running minigame.
-            task.cancel();
+            Ember.engine.unregister(minigame);
+
+            if (!minigame.timing().isShared()) {
+                entry.get().getTask().cancel();
+            }
 
             // Call an event so that the plugins know a minigame has stopped.
-            Ember.game().getEventManager().post(new MinigameStoppedEvent((Minigame) task.getConsumer()));
+            execution.post(new MinigameStoppedEvent(minigame));
 
             // Unregister the object from the EventManager.
-            Ember.game().getEventManager().unregisterListeners(task.getConsumer());
+            Ember.game().getEventManager().unregisterListeners(minigame);
 
-            // Remove the arena.
-            Ember.arenas.remove(arena);
+            // Remove the arena, releasing its players.
+            Ember.registry.remove(arena.getUniqueId());
 
             return true;
         }
         return false;
     }
 
+    /**
+     * Add a player to an arena's running minigame. A player can only be in one
+     * arena at a time, so they are removed from any previous arena first.
+     *
+     * @param player the player joining.
+     * @param arena the arena to join.
+     * @return true if the player joined, false if the arena isn't registered.
+     */
+    public static boolean join(Player player, Arena arena) {
+        return Ember.registry.join(player.getUniqueId(), arena.getUniqueId());
+    }
+
+    /**
+     * Remove a player from the arena they are in.
+     *
+     * @param player the player leaving.
+     * @return the arena the player left wrapped in an Optional.
+     */
+    public static Optional<Arena> leave(Player player) {
+        Optional<Registry.Entry> entry = Ember.registry.leave(player.getUniqueId());
+        return entry.isPresent() ? entry.get().arena() : Optional.<Arena>empty();
+    }
+
+    /**
+     * Get the arena a player is in.
+     *
+     * @param player the player.
+     * @return the arena wrapped in an Optional.
+     */
+    public static Optional<Arena> getArena(Player player) {
+        Optional<Registry.Entry> entry = Ember.registry.getByPlayer(player.getUniqueId());
+        return entry.isPresent() ? entry.get().arena() : Optional.<Arena>empty();
+    }
+
+    /**
+     * Get the minigame a player is playing.
+     *
+     * @param player the player.
+     * @return the minigame wrapped in an Optional.
+     */
+    public static Optional<Minigame> getMinigame(Player player) {
+        Optional<Registry.Entry> entry = Ember.registry.getByPlayer(player.getUniqueId());
+        return entry.isPresent() ? entry.get().minigame() : Optional.<Minigame>empty();
+    }
+
     /**
      * Get an arena by it's identifier.
      *
@@ -203,11 +372,8 @@ public class Ember {
      * @return the arena wrapped in an Optional.
      */
     public static Optional<Arena> getArena(UUID id) {
-        for (Arena a : Ember.arenas.keySet()) {
-            if (a.getUniqueId().equals(id))
-                return Optional.of(a);
-        }
-        return Optional.empty();
+        Optional<Registry.Entry> entry = Ember.registry.get(id);
+        return entry.isPresent() ? entry.get().arena() : Optional.<Arena>empty();
     }
 
     /**
@@ -217,11 +383,8 @@ public class Ember {
      * @return the arena wrapped in an Optional.
      */
     public static Optional<Arena> getArena(Minigame minigame) {
-        for (Arena a : Ember.arenas.keySet()) {
-            if (Ember.arenas.get(a).getConsumer().equals(minigame))
-                return Optional.of(a);
-        }
-        return Optional.empty();
+        Optional<Registry.Entry> entry = Ember.registry.get(minigame);
+        return entry.isPresent() ? entry.get().arena() : Optional.<Arena>empty();
     }
 
     /**
@@ -231,7 +394,19 @@ public class Ember {
      * @return the minigame wrapped in an Optional.
      */
     public static Optional<Minigame> getMinigame(Arena arena) {
-        return (Ember.arenas.get(arena) != null) ? Optional.of((Minigame) Ember.arenas.get(arena).getConsumer()) : Optional.<Minigame>empty();
+        Optional<Registry.Entry> entry = Ember.registry.get(arena.getUniqueId());
+        return entry.isPresent() ? entry.get().minigame() : Optional.<Minigame>empty();
+    }
+
+    /**
+     * Get the timing metrics of the minigame running on an arena.
+     *
+     * @param arena the arena.
+     * @return the metrics wrapped in an Optional.
+     */
+    public static Optional<Metrics> getMetrics(Arena arena) {
+        Optional<Registry.Entry> entry = Ember.registry.get(arena.getUniqueId());
+        return entry.isPresent() ? Optional.of(entry.get().getExecution().getMetrics()) : Optional.<Metrics>empty();
     }
 
     /**
@@ -240,7 +415,7 @@ public class Ember {
      * @return An ImmutableList of Arena objects.
      */
     public static ImmutableList<Arena> getArenas() {
-        return ImmutableList.copyOf(Ember.arenas.keySet());
+        return Ember.registry.getArenas();
     }
 
     /**
@@ -250,19 +425,18 @@ public class Ember {
      * @return Arena in that world.
      */
     public static ImmutableList<Arena> getArenas(World world) {
-        // A collection to store the arena temporarily.
-        Collection<Arena> arenas = new ArrayList<Arena>();
-
-        // Loop through all the arenas.
-        for (Arena a : Ember.arenas.keySet()) {
+        return Ember.registry.getArenas(world);
+    }
 
-            // If the arena's world is equal to the specified world.
-            if (a.getSpawn().getWorld().equals(world)) {
-                // Add it to the collection.
-                arenas.add(a);
-            }
-        }
-        return ImmutableList.copyOf(arenas);
+    /**
+     * Gets the arena whose region contains a location.
+     *
+     * @param location the location.
+     * @return the arena wrapped in an Optional.
+     */
+    public static Optional<Arena> getArenaAt(Location<World> location) {
+        Optional<Registry.Entry> entry = Ember.registry.getAt(location.getExtent().getUniqueId(), location.getX(), location.getY(), location.getZ());
+        return entry.isPresent() ? entry.get().arena() : Optional.<Arena>empty();
     }
 
     /**
@@ -271,11 +445,7 @@ public class Ember {
      * @return An ImmutableList of Minigame objects.
      */
     public static ImmutableList<Minigame> getMinigames() {
-        List<Minigame> games = new ArrayList<Minigame>();
-        for (Task t : Ember.arenas.values()) {
-            games.add((Minigame) t.getConsumer());
-        }
-        return ImmutableList.copyOf(games);
+        return Ember.registry.getMinigames();
     }
 
     /**
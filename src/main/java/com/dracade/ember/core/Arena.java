@@ -23,7 +23,10 @@
  */
 package com.dracade.ember.core;
 
+import com.dracade.ember.core.region.Region;
 import org.spongepowered.api.util.Identifiable;
+import org.spongepowered.api.world.Location;
+import org.spongepowered.api.world.World;
 
 import java.util.UUID;
 
@@ -33,6 +36,8 @@ public abstract class Arena implements Identifiable {
     private String name;
     private UUID uniqueId;
     private SpawnPoint spawn;
+    private SpawnSet spawns;
+    private Region region;
 
     // Serialization purposes only.
     private final Class _type;
@@ -41,6 +46,7 @@ public abstract class Arena implements Identifiable {
         this.name = "";
         this.uniqueId = UUID.randomUUID();
         this.spawn = null;
+        this.spawns = new SpawnSet();
 
         this._type = this.getClass();
     }
@@ -55,6 +61,7 @@ public abstract class Arena implements Identifiable {
         this.name = name;
         this.uniqueId = UUID.randomUUID();
         this.spawn = spawn;
+        this.spawns = new SpawnSet();
 
         this._type = this.getClass();
     }
@@ -82,6 +89,59 @@ public abstract class Arena implements Identifiable {
         return this.spawn;
     }
 
+    /**
+     * Get the arena's additional spawn points, used by modes that need more
+     * than a single spawn.
+     *
+     * @return the arena's spawn set.
+     */
+    public final SpawnSet getSpawns() {
+        if (this.spawns == null) {
+            this.spawns = new SpawnSet();
+        }
+        return this.spawns;
+    }
+
+    /**
+     * Set the region covered by the arena. The region of a registered arena is
+     * indexed when it's registered, so register the arena again for a new
+     * region to be picked up by {@link com.dracade.ember.Ember#getArenaAt}.
+     *
+     * @param region the region, or null.
+     */
+    public final void setRegion(Region region) {
+        this.region = region;
+    }
+
+    /**
+     * @return the region covered by the arena, or null.
+     */
+    public final Region getRegion() {
+        return this.region;
+    }
+
+    /**
+     * Check whether a location is inside the arena.
+     *
+     * @param location the location.
+     * @return true if the location is on the arena's world and inside its
+     *         region.
+     */
+    public final boolean contains(Location<World> location) {
+        WorldReference world = this.getWorld();
+
+        return this.region != null && world != null && world.getUniqueId().equals(location.getExtent().getUniqueId())
+                && this.region.contains(location.getX(), location.getY(), location.getZ());
+    }
+
+    /**
+     * @return the reference to the arena's world, or null if the arena has no
+     *         spawn.
+     */
+    public final WorldReference getWorld() {
+        return (this.spawn != null) ? this.spawn.getWorldReference() : null;
+    }
+
     @Override
     public final UUID getUniqueId() {
         return this.uniqueId;
@@ -49,6 +49,46 @@ public interface Minigame extends Consumer<Task> {
      */
     long interval();
 
+    /**
+     * Gets the unit of {@link #delay()} and {@link #interval()}. Minigames
+     * using {@link Timing#SECONDS} run on their own Sponge task, any other
+     * timing runs the minigame on Ember's shared engine.
+     *
+     * <p>Minigames running on the shared engine are handed the engine's task,
+     * and must be stopped through {@link com.dracade.ember.Ember#unregister}
+     * rather than by cancelling it.</p>
+     *
+     * @return The timing of the minigame.
+     */
+    default Timing timing() {
+        return Timing.SECONDS;
+    }
+
+    /**
+     * Whether the minigame runs on Ember's worker pool instead of the server
+     * thread. Asynchronous minigames must not touch the world directly, and
+     * should instead submit their changes to the queue returned by
+     * {@link com.dracade.ember.system.Engine#queue(Minigame)}, which is
+     * applied on the server thread once per tick. A run is skipped if the
+     * previous one hasn't finished yet.
+     *
+     * @return True if the minigame runs asynchronously.
+     */
+    default boolean async() {
+        return false;
+    }
+
+    /**
+     * Whether the blocks changed within the minigame's arena are recorded and
+     * rolled back once the minigame stops. Only arenas with a region are
+     * recorded.
+     *
+     * @return True if the arena is rolled back.
+     */
+    default boolean rollback() {
+        return true;
+    }
+
     /**
      * Whether or not this object is registered to the event bus. This should be
      * set to FALSE if the class specified is the plugin class annotated with
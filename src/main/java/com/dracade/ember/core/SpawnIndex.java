@@ -0,0 +1,285 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.core;
+
+import com.flowpowered.math.vector.Vector3d;
+
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * A static k-d tree over spawn positions. The tree is stored implicitly: the
+ * node of a range of the {@code order} array is its middle element, and its
+ * children are the halves on either side of it. Every node also keeps the
+ * bounding box of its subtree, which lets farthest-point queries prune whole
+ * subtrees.
+ */
+final class SpawnIndex {
+
+    // Coordinates of the points, indexed by spawn.
+    private final double[] coordinates;
+
+    // Spawn indexes in tree order.
+    private final int[] order;
+
+    // Bounding boxes of the subtrees, indexed by node.
+    private final double[] min;
+    private final double[] max;
+
+    // Best match found by the current query.
+    private int best;
+    private double bestDistance;
+
+    /**
+     * SpawnIndex constructor.
+     *
+     * @param spawns the spawns to index.
+     */
+    SpawnIndex(List<SpawnPoint> spawns) {
+        int size = spawns.size();
+
+        this.coordinates = new double[size * 3];
+        this.order = new int[size];
+        this.min = new double[size * 3];
+        this.max = new double[size * 3];
+
+        for (int i = 0; i < size; i++) {
+            Vector3d position = spawns.get(i).getPosition();
+            this.coordinates[i * 3] = position.getX();
+            this.coordinates[i * 3 + 1] = position.getY();
+            this.coordinates[i * 3 + 2] = position.getZ();
+            this.order[i] = i;
+        }
+
+        this.build(0, size, 0);
+    }
+
+    /**
+     * Find the spawn nearest to a position.
+     *
+     * @param position the position.
+     * @param filter the spawns that may be returned.
+     * @return the spawn's index, or -1 if no spawn matched.
+     */
+    int nearest(Vector3d position, IntPredicate filter) {
+        this.best = -1;
+        this.bestDistance = Double.POSITIVE_INFINITY;
+        this.nearest(0, this.order.length, 0, position.getX(), position.getY(), position.getZ(), filter);
+        return this.best;
+    }
+
+    /**
+     * Find the spawn whose distance to the closest of a set of positions is
+     * the largest.
+     *
+     * @param positions the positions, must not be empty.
+     * @param filter the spawns that may be returned.
+     * @return the spawn's index, or -1 if no spawn matched.
+     */
+    int farthest(List<Vector3d> positions, IntPredicate filter) {
+        double[] points = new double[positions.size() * 3];
+        for (int i = 0; i < positions.size(); i++) {
+            points[i * 3] = positions.get(i).getX();
+            points[i * 3 + 1] = positions.get(i).getY();
+            points[i * 3 + 2] = positions.get(i).getZ();
+        }
+
+        this.best = -1;
+        this.bestDistance = Double.NEGATIVE_INFINITY;
+        this.farthest(0, this.order.length, points, filter);
+        return this.best;
+    }
+
+    /**
+     * Build the subtree of a range.
+     *
+     * @param from the start of the range, inclusive.
+     * @param to the end of the range, exclusive.
+     * @param axis the axis the range is split on.
+     */
+    private void build(int from, int to, int axis) {
+        if (from >= to)
+            return;
+
+        int mid = (from + to) >>> 1;
+        this.select(from, to - 1, mid, axis);
+
+        this.build(from, mid, (axis + 1) % 3);
+        this.build(mid + 1, to, (axis + 1) % 3);
+
+        // The bounding box of the node is its point's, grown to contain the
+        // boxes of its children.
+        for (int a = 0; a < 3; a++) {
+            double value = this.coordinates[this.order[mid] * 3 + a];
+            double low = value;
+            double high = value;
+
+            if (from < mid) {
+                int left = (from + mid) >>> 1;
+                low = Math.min(low, this.min[left * 3 + a]);
+                high = Math.max(high, this.max[left * 3 + a]);
+            }
+            if (mid + 1 < to) {
+                int right = (mid + 1 + to) >>> 1;
+                low = Math.min(low, this.min[right * 3 + a]);
+                high = Math.max(high, this.max[right * 3 + a]);
+            }
+
+            this.min[mid * 3 + a] = low;
+            this.max[mid * 3 + a] = high;
+        }
+    }
+
+    /**
+     * Partially sort a range so that the element at {@code k} is the one that
+     * would be there if the range was sorted along an axis.
+     */
+    private void select(int left, int right, int k, int axis) {
+        while (left < right) {
+            double pivot = this.coordinate(this.order[(left + right) >>> 1], axis);
+            int i = left;
+            int j = right;
+
+            while (i <= j) {
+                while (this.coordinate(this.order[i], axis) < pivot) i++;
+                while (this.coordinate(this.order[j], axis) > pivot) j--;
+                if (i <= j) {
+                    int swap = this.order[i];
+                    this.order[i++] = this.order[j];
+                    this.order[j--] = swap;
+                }
+            }
+
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void nearest(int from, int to, int axis, double x, double y, double z, IntPredicate filter) {
+        if (from >= to)
+            return;
+
+        int mid = (from + to) >>> 1;
+        int spawn = this.order[mid];
+
+        if (filter.test(spawn)) {
+            double distance = this.distance(spawn, x, y, z);
+            if (distance < this.bestDistance) {
+                this.best = spawn;
+                this.bestDistance = distance;
+            }
+        }
+
+        double delta = ((axis == 0) ? x : (axis == 1) ? y : z) - this.coordinate(spawn, axis);
+        int next = (axis + 1) % 3;
+
+        // Search the side containing the position first, then the other
+        // side only if it could hold a closer spawn.
+        if (delta < 0) {
+            this.nearest(from, mid, next, x, y, z, filter);
+            if (delta * delta < this.bestDistance) {
+                this.nearest(mid + 1, to, next, x, y, z, filter);
+            }
+        } else {
+            this.nearest(mid + 1, to, next, x, y, z, filter);
+            if (delta * delta < this.bestDistance) {
+                this.nearest(from, mid, next, x, y, z, filter);
+            }
+        }
+    }
+
+    private void farthest(int from, int to, double[] points, IntPredicate filter) {
+        if (from >= to)
+            return;
+
+        int mid = (from + to) >>> 1;
+        int spawn = this.order[mid];
+
+        if (filter.test(spawn)) {
+            double distance = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < points.length; i += 3) {
+                distance = Math.min(distance, this.distance(spawn, points[i], points[i + 1], points[i + 2]));
+            }
+
+            if (distance > this.bestDistance) {
+                this.best = spawn;
+                this.bestDistance = distance;
+            }
+        }
+
+        int left = (from + mid) >>> 1;
+        int right = (mid + 1 + to) >>> 1;
+        double leftBound = (from < mid) ? this.bound(left, points) : Double.NEGATIVE_INFINITY;
+        double rightBound = (mid + 1 < to) ? this.bound(right, points) : Double.NEGATIVE_INFINITY;
+
+        // Visit the more promising subtree first, and skip any subtree that
+        // can't contain a better spawn.
+        if (leftBound >= rightBound) {
+            if (leftBound > this.bestDistance) this.farthest(from, mid, points, filter);
+            if (rightBound > this.bestDistance) this.farthest(mid + 1, to, points, filter);
+        } else {
+            if (rightBound > this.bestDistance) this.farthest(mid + 1, to, points, filter);
+            if (leftBound > this.bestDistance) this.farthest(from, mid, points, filter);
+        }
+    }
+
+    /**
+     * Get an upper bound of the distance between any spawn of a subtree and
+     * the closest of a set of points.
+     *
+     * @param node the subtree's node.
+     * @param points the points.
+     * @return the squared bound.
+     */
+    private double bound(int node, double[] points) {
+        double bound = Double.POSITIVE_INFINITY;
+
+        for (int i = 0; i < points.length; i += 3) {
+            double distance = 0;
+            for (int a = 0; a < 3; a++) {
+                double d = Math.max(Math.abs(points[i + a] - this.min[node * 3 + a]), Math.abs(points[i + a] - this.max[node * 3 + a]));
+                distance += d * d;
+            }
+            bound = Math.min(bound, distance);
+        }
+        return bound;
+    }
+
+    private double coordinate(int spawn, int axis) {
+        return this.coordinates[spawn * 3 + axis];
+    }
+
+    private double distance(int spawn, double x, double y, double z) {
+        double dx = this.coordinates[spawn * 3] - x;
+        double dy = this.coordinates[spawn * 3 + 1] - y;
+        double dz = this.coordinates[spawn * 3 + 2] - z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+}
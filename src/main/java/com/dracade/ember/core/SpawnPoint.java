@@ -23,6 +23,7 @@
  */
 package com.dracade.ember.core;
 
+import com.dracade.ember.system.Worlds;
 import com.flowpowered.math.vector.Vector3d;
 import org.spongepowered.api.world.Location;
 import org.spongepowered.api.world.World;
@@ -32,7 +33,7 @@ public class SpawnPoint {
     // SpawnPoint properties
     private Vector3d position;
     private Vector3d rotation;
-    private World world;
+    private WorldReference world;
 
     /**
      * Creates a SpawnPoint at the given position and world where a player can
@@ -43,6 +44,18 @@ public class SpawnPoint {
      * @param world The world the players spawns in.
      */
     public SpawnPoint(Vector3d position, Vector3d rotation, World world) {
+        this(position, rotation, (world != null) ? Worlds.instance().reference(world) : null);
+    }
+
+    /**
+     * Creates a SpawnPoint at the given position and world where a player can
+     * spawn it with the given rotation. The world doesn't need to be loaded.
+     *
+     * @param position The position the player spawns at.
+     * @param rotation The rotation the player spawns in.
+     * @param world The reference to the world the players spawns in.
+     */
+    public SpawnPoint(Vector3d position, Vector3d rotation, WorldReference world) {
         this.position = position;
         this.rotation = rotation;
         this.world = world;
@@ -90,15 +103,34 @@ public class SpawnPoint {
      * @param world the World object.
      */
     public void setWorld(World world) {
+        this.world = (world != null) ? Worlds.instance().reference(world) : null;
+    }
+
+    /**
+     * Set the world that will hold the Spawnpoint, without requiring it to
+     * be loaded.
+     *
+     * @param world the reference to the world.
+     */
+    public void setWorldReference(WorldReference world) {
         this.world = world;
     }
 
     /**
      * Get the world that holds the Spawnpoint.
      *
-     * @return the World object.
+     * @return the World object, or null if the world isn't loaded.
      */
     public World getWorld() {
+        return (this.world != null) ? this.world.get().orElse(null) : null;
+    }
+
+    /**
+     * Get the reference to the world that holds the Spawnpoint.
+     *
+     * @return the reference, whether or not the world is loaded.
+     */
+    public WorldReference getWorldReference() {
         return this.world;
     }
 
@@ -108,8 +140,14 @@ public class SpawnPoint {
      * {@link org.spongepowered.api.world.extent.Extent} and Position.
      *
      * @return The Spawnpoint as a Location object.
+     * @throws IllegalStateException if the world isn't loaded.
      */
     public Location<World> getLocation() {
+        World world = this.getWorld();
+
+        if (world == null)
+            throw new IllegalStateException("The Spawnpoint's world isn't loaded.");
+
         return new Location<World>(world, position);
     }
 
@@ -0,0 +1,252 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.core;
+
+import com.flowpowered.math.vector.Vector3d;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+/**
+ * A set of spawn points belonging to an arena. Spawns are indexed spatially
+ * so that the nearest spawn to a position, or the spawn farthest from a set
+ * of positions, can be found without checking every spawn. Spawns can be
+ * marked as occupied, and a random unoccupied spawn can be picked in
+ * constant time.
+ *
+ * <p>The index and occupancy aren't serialized, and are rebuilt whenever the
+ * set changes. A SpawnSet isn't thread-safe.</p>
+ */
+public class SpawnSet {
+
+    // The spawn points.
+    private List<SpawnPoint> spawns;
+
+    // The spatial index, or null if it needs to be rebuilt.
+    private transient SpawnIndex index;
+
+    // The index of every spawn in the list.
+    private transient Map<SpawnPoint, Integer> indices;
+
+    // The unoccupied spawns, and the position of every spawn in that array,
+    // or -1 if the spawn is occupied.
+    private transient int[] free;
+    private transient int[] slots;
+    private transient int freeCount;
+
+    /**
+     * Creates an empty SpawnSet.
+     */
+    public SpawnSet() {
+        this.spawns = new ArrayList<SpawnPoint>();
+    }
+
+    /**
+     * Add a spawn point. Clears the occupancy of every spawn.
+     *
+     * @param spawn the spawn point.
+     */
+    public void add(SpawnPoint spawn) {
+        this.spawns.add(spawn);
+        this.invalidate();
+    }
+
+    /**
+     * Remove a spawn point. Clears the occupancy of every spawn.
+     *
+     * @param spawn the spawn point.
+     * @return true if the spawn point was removed.
+     */
+    public boolean remove(SpawnPoint spawn) {
+        boolean removed = this.spawns.remove(spawn);
+        this.invalidate();
+        return removed;
+    }
+
+    /**
+     * @return an unmodifiable list of the spawn points.
+     */
+    public List<SpawnPoint> getSpawns() {
+        return Collections.unmodifiableList(this.spawns);
+    }
+
+    /**
+     * @return the number of spawn points.
+     */
+    public int size() {
+        return this.spawns.size();
+    }
+
+    /**
+     * Find the spawn point nearest to a position.
+     *
+     * @param position the position.
+     * @param unoccupied true to only consider unoccupied spawns.
+     * @return the spawn point wrapped in an Optional.
+     */
+    public Optional<SpawnPoint> getNearest(Vector3d position, boolean unoccupied) {
+        this.build();
+        return this.get(this.index.nearest(position, unoccupied ? this::isFree : s -> true));
+    }
+
+    /**
+     * Find the spawn point whose distance to the closest of a set of positions
+     * is the largest, for instance the spawn farthest from any enemy.
+     *
+     * @param positions the positions.
+     * @param unoccupied true to only consider unoccupied spawns.
+     * @return the spawn point wrapped in an Optional.
+     */
+    public Optional<SpawnPoint> getFarthest(Collection<Vector3d> positions, boolean unoccupied) {
+        this.build();
+
+        if (positions.isEmpty())
+            return unoccupied ? this.getRandom(new Random()) : this.get(this.spawns.isEmpty() ? -1 : 0);
+
+        return this.get(this.index.farthest(new ArrayList<Vector3d>(positions), unoccupied ? this::isFree : s -> true));
+    }
+
+    /**
+     * Pick a random unoccupied spawn point.
+     *
+     * @param random the source of randomness.
+     * @return the spawn point wrapped in an Optional.
+     */
+    public Optional<SpawnPoint> getRandom(Random random) {
+        this.build();
+        return (this.freeCount > 0) ? this.get(this.free[random.nextInt(this.freeCount)]) : Optional.<SpawnPoint>empty();
+    }
+
+    /**
+     * Mark a spawn point as occupied.
+     *
+     * @param spawn the spawn point.
+     * @return true if the spawn point was unoccupied.
+     */
+    public boolean occupy(SpawnPoint spawn) {
+        this.build();
+        Integer i = this.indices.get(spawn);
+
+        if (i == null || this.slots[i] < 0)
+            return false;
+
+        // Move the last free spawn into the occupied spawn's slot.
+        int slot = this.slots[i];
+        int last = this.free[--this.freeCount];
+        this.free[slot] = last;
+        this.slots[last] = slot;
+        this.slots[i] = -1;
+        return true;
+    }
+
+    /**
+     * Mark a spawn point as unoccupied.
+     *
+     * @param spawn the spawn point.
+     * @return true if the spawn point was occupied.
+     */
+    public boolean release(SpawnPoint spawn) {
+        this.build();
+        Integer i = this.indices.get(spawn);
+
+        if (i == null || this.slots[i] >= 0)
+            return false;
+
+        this.free[this.freeCount] = i;
+        this.slots[i] = this.freeCount++;
+        return true;
+    }
+
+    /**
+     * Mark every spawn point as unoccupied.
+     */
+    public void releaseAll() {
+        this.free = null;
+        this.build();
+    }
+
+    /**
+     * Check whether a spawn point is occupied.
+     *
+     * @param spawn the spawn point.
+     * @return true if the spawn point is occupied.
+     */
+    public boolean isOccupied(SpawnPoint spawn) {
+        this.build();
+        Integer i = this.indices.get(spawn);
+        return (i != null) && this.slots[i] < 0;
+    }
+
+    private boolean isFree(int spawn) {
+        return this.slots[spawn] >= 0;
+    }
+
+    private Optional<SpawnPoint> get(int spawn) {
+        return (spawn >= 0) ? Optional.of(this.spawns.get(spawn)) : Optional.<SpawnPoint>empty();
+    }
+
+    /**
+     * Discard the index and occupancy.
+     */
+    private void invalidate() {
+        this.index = null;
+        this.free = null;
+    }
+
+    /**
+     * Build the index and occupancy if they were discarded, or haven't been
+     * built since the set was deserialized.
+     */
+    private void build() {
+        if (this.spawns == null) {
+            this.spawns = new ArrayList<SpawnPoint>();
+        }
+
+        if (this.index == null) {
+            this.index = new SpawnIndex(this.spawns);
+            this.indices = new IdentityHashMap<SpawnPoint, Integer>();
+            for (int i = 0; i < this.spawns.size(); i++) {
+                this.indices.put(this.spawns.get(i), i);
+            }
+        }
+
+        if (this.free == null) {
+            int size = this.spawns.size();
+            this.free = new int[size];
+            this.slots = new int[size];
+            for (int i = 0; i < size; i++) {
+                this.free[i] = i;
+                this.slots[i] = i;
+            }
+            this.freeCount = size;
+        }
+    }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.core;
+
+/**
+ * The unit a {@link Minigame}'s delay and interval are measured in.
+ */
+public enum Timing {
+
+    /**
+     * The minigame runs on its own Sponge task, with the delay and interval
+     * measured in seconds.
+     */
+    SECONDS,
+
+    /**
+     * The minigame runs on Ember's shared engine, with the delay and interval
+     * measured in milliseconds. Values are rounded up to the next whole tick.
+     */
+    MILLISECONDS,
+
+    /**
+     * The minigame runs on Ember's shared engine, with the delay and interval
+     * measured in server ticks.
+     */
+    TICKS;
+
+    // The length of a server tick in milliseconds.
+    private static final long TICK_LENGTH = 50;
+
+    /**
+     * @return true if minigames using this timing run on Ember's shared engine.
+     */
+    public boolean isShared() {
+        return this != SECONDS;
+    }
+
+    /**
+     * Convert a value in this unit to milliseconds.
+     *
+     * @param value the value to convert.
+     * @return the value in milliseconds.
+     */
+    public long toMillis(long value) {
+        switch (this) {
+            case SECONDS:
+                return value * 1000;
+            case MILLISECONDS:
+                return value;
+            default:
+                return value * TICK_LENGTH;
+        }
+    }
+
+    /**
+     * Convert a value in this unit to server ticks.
+     *
+     * @param value the value to convert.
+     * @return the value in ticks, rounded up.
+     */
+    public long toTicks(long value) {
+        switch (this) {
+            case SECONDS:
+                return value * (1000 / TICK_LENGTH);
+            case MILLISECONDS:
+                return (value + TICK_LENGTH - 1) / TICK_LENGTH;
+            default:
+                return value;
+        }
+    }
+
+}
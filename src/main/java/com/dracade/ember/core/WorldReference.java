@@ -0,0 +1,146 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.core;
+
+import com.dracade.ember.Ember;
+import org.spongepowered.api.util.Identifiable;
+import org.spongepowered.api.world.World;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A lazily resolved reference to a world. The world is looked up the first
+ * time it's needed and cached weakly, so holding a reference neither requires
+ * the world to be loaded nor keeps it loaded.
+ *
+ * <p>There is a single reference per world. References are obtained from
+ * {@link com.dracade.ember.system.Worlds}, which keeps them up to date as
+ * worlds are loaded and unloaded.</p>
+ */
+public final class WorldReference implements Identifiable {
+
+    // Marks a world that is known not to be loaded.
+    private static final WeakReference<World> ABSENT = new WeakReference<World>(null);
+
+    // The references handed out, indexed by their world's unique identifier.
+    private static final Map<UUID, WorldReference> REFERENCES = new ConcurrentHashMap<UUID, WorldReference>();
+
+    private final UUID uniqueId;
+
+    // The cached world, ABSENT, or null if it hasn't been looked up yet.
+    private volatile WeakReference<World> world;
+
+    /**
+     * WorldReference constructor.
+     *
+     * @param uniqueId the world's unique identifier.
+     */
+    WorldReference(UUID uniqueId) {
+        this.uniqueId = uniqueId;
+    }
+
+    /**
+     * Get the reference to a world, creating it the first time. Prefer
+     * {@link com.dracade.ember.system.Worlds#reference(UUID)}.
+     *
+     * @param uniqueId the world's unique identifier.
+     * @return the world's reference.
+     */
+    public static WorldReference of(UUID uniqueId) {
+        return REFERENCES.computeIfAbsent(uniqueId, WorldReference::new);
+    }
+
+    /**
+     * Find the reference to a world, if one was handed out.
+     *
+     * @param uniqueId the world's unique identifier.
+     * @return the reference wrapped in an Optional.
+     */
+    public static Optional<WorldReference> find(UUID uniqueId) {
+        return Optional.ofNullable(REFERENCES.get(uniqueId));
+    }
+
+    @Override
+    public UUID getUniqueId() {
+        return this.uniqueId;
+    }
+
+    /**
+     * Get the world, looking it up if it hasn't been yet.
+     *
+     * @return the world wrapped in an Optional, empty if it isn't loaded.
+     */
+    public Optional<World> get() {
+        WeakReference<World> reference = this.world;
+        World world = (reference != null) ? reference.get() : null;
+
+        if (world != null)
+            return Optional.of(world);
+
+        if (reference == ABSENT)
+            return Optional.empty();
+
+        Optional<World> optional = Ember.game().getServer().getWorld(this.uniqueId);
+        this.world = optional.isPresent() ? new WeakReference<World>(optional.get()) : ABSENT;
+        return optional;
+    }
+
+    /**
+     * @return true if the world is loaded.
+     */
+    public boolean isLoaded() {
+        return this.get().isPresent();
+    }
+
+    /**
+     * Update the reference when its world is loaded.
+     *
+     * @param world the world.
+     */
+    public void loaded(World world) {
+        this.world = new WeakReference<World>(world);
+    }
+
+    /**
+     * Update the reference when its world is unloaded.
+     */
+    public void unloaded() {
+        this.world = ABSENT;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return (o instanceof WorldReference) && ((WorldReference) o).uniqueId.equals(this.uniqueId);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.uniqueId.hashCode();
+    }
+
+}
@@ -23,6 +23,7 @@
  */
 package com.dracade.ember.core.adapters;
 
+import com.dracade.ember.system.ClassResolver;
 import com.google.gson.TypeAdapter;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonToken;
@@ -44,7 +45,7 @@ public class ClassAdapter extends TypeAdapter<Class> {
         out.value(value.getSimpleName());
 
         out.name("class");
-        out.value(value.getName());
+        out.value(ClassResolver.instance().getName(value));
         out.endObject();
     }
 
@@ -58,11 +59,11 @@ public class ClassAdapter extends TypeAdapter<Class> {
         in.nextString();
         in.nextName();
 
-        Class c = null;
+        Class c;
         try {
-            c = Class.forName(in.nextString());
+            c = ClassResolver.instance().resolve(in.nextString());
         } catch (ClassNotFoundException e) {
-            e.printStackTrace();
+            throw new IOException(e.getMessage(), e);
         }
 
         in.endObject();
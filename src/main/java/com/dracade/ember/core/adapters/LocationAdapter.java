@@ -1,14 +1,15 @@
 package com.dracade.ember.core.adapters;
 
+import com.dracade.ember.system.Worlds;
 import com.google.gson.TypeAdapter;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
-import org.spongepowered.api.Sponge;
 import org.spongepowered.api.world.Location;
 import org.spongepowered.api.world.World;
 
 import java.io.IOException;
+import java.util.Optional;
 import java.util.UUID;
 
 public class LocationAdapter extends TypeAdapter<Location<World>> {
@@ -62,13 +63,11 @@ public class LocationAdapter extends TypeAdapter<Location<World>> {
 
         in.endObject();
 
-        if (Sponge.getServer().getWorld(UUID.fromString(worldID)).isPresent()) {
-            Location<World> location = new Location<World>(Sponge.getServer().getWorld(UUID.fromString(worldID)).get(), x, y, z);
-            return location;
-        } else {
-            System.out.println("Error! Location's world for AdminShop not found. World UUID: " + worldID);
-            return null;
-        }
+        Optional<World> world = Worlds.instance().resolve(UUID.fromString(worldID));
+
+        // A location can't exist without its world, use a SpawnPoint for
+        // positions on worlds that may not be loaded.
+        return world.isPresent() ? new Location<World>(world.get(), x, y, z) : null;
     }
 
 }
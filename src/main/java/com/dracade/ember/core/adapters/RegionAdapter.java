@@ -0,0 +1,123 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.core.adapters;
+
+import com.dracade.ember.core.region.CompoundRegion;
+import com.dracade.ember.core.region.Cuboid;
+import com.dracade.ember.core.region.Region;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class RegionAdapter extends TypeAdapter<Region> {
+
+    @Override
+    public void write(JsonWriter out, Region value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+
+        if (value instanceof Cuboid) {
+            Cuboid cuboid = (Cuboid) value;
+
+            out.name("type");
+            out.value("cuboid");
+
+            out.name("min");
+            out.beginArray().value(cuboid.getMin().getX()).value(cuboid.getMin().getY()).value(cuboid.getMin().getZ()).endArray();
+
+            out.name("max");
+            out.beginArray().value(cuboid.getMax().getX()).value(cuboid.getMax().getY()).value(cuboid.getMax().getZ()).endArray();
+        } else if (value instanceof CompoundRegion) {
+            out.name("type");
+            out.value("compound");
+
+            out.name("regions");
+            out.beginArray();
+            for (Region region : ((CompoundRegion) value).getRegions()) {
+                this.write(out, region);
+            }
+            out.endArray();
+        } else {
+            throw new IOException("Unable to serialize the region " + value.getClass().getName());
+        }
+
+        out.endObject();
+    }
+
+    @Override
+    public Region read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        in.beginObject();
+        in.nextName();
+        String type = in.nextString();
+
+        Region region;
+        if (type.equals("cuboid")) {
+            in.nextName();
+            double[] min = this.readVector(in);
+            in.nextName();
+            double[] max = this.readVector(in);
+
+            region = new Cuboid(min[0], min[1], min[2], max[0], max[1], max[2]);
+        } else if (type.equals("compound")) {
+            in.nextName();
+
+            List<Region> regions = new ArrayList<Region>();
+            in.beginArray();
+            while (in.hasNext()) {
+                regions.add(this.read(in));
+            }
+            in.endArray();
+
+            region = new CompoundRegion(regions);
+        } else {
+            throw new IOException("Unknown region type " + type);
+        }
+
+        in.endObject();
+
+        return region;
+    }
+
+    private double[] readVector(JsonReader in) throws IOException {
+        in.beginArray();
+        double[] vector = {in.nextDouble(), in.nextDouble(), in.nextDouble()};
+        in.endArray();
+        return vector;
+    }
+
+}
@@ -23,7 +23,7 @@
  */
 package com.dracade.ember.core.adapters;
 
-import com.dracade.ember.Ember;
+import com.dracade.ember.system.Worlds;
 import com.google.gson.TypeAdapter;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonToken;
@@ -64,7 +64,7 @@ public class WorldAdapter extends TypeAdapter<World> {
         in.nextString();
         in.nextName();
 
-        Optional<World> optional = Ember.game().getServer().getWorld(UUID.fromString(in.nextString()));
+        Optional<World> optional = Worlds.instance().resolve(UUID.fromString(in.nextString()));
 
         in.endObject();
 
@@ -0,0 +1,179 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.core.codecs;
+
+import com.dracade.ember.core.Arena;
+import com.dracade.ember.system.BinarySerializer;
+import com.dracade.ember.system.ClassResolver;
+import com.dracade.ember.system.Codec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Writes arenas field by field, the way Gson does, so that the fields added
+ * by a minigame's own arena class are synced too. The arena's class is
+ * written first, and must have a constructor without parameters. Fields of
+ * types other than primitives, strings and enums need a registered codec.
+ */
+public class ArenaCodec implements Codec<Arena> {
+
+    // The fields written for each arena class, superclass fields first.
+    private static final ClassValue<List<Field>> FIELDS = new ClassValue<List<Field>>() {
+        @Override
+        protected List<Field> computeValue(Class<?> type) {
+            List<Field> fields = new ArrayList<Field>();
+
+            for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+                List<Field> declared = new ArrayList<Field>();
+                for (Field field : c.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+
+                    // The class is written once, up front.
+                    if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic() || field.getName().equals("_type"))
+                        continue;
+
+                    field.setAccessible(true);
+                    declared.add(field);
+                }
+
+                // Declaration order isn't guaranteed, names are.
+                declared.sort(Comparator.comparing(Field::getName));
+                fields.addAll(0, declared);
+            }
+            return Collections.unmodifiableList(fields);
+        }
+    };
+
+    @Override
+    public void write(DataOutput out, Arena value) throws IOException {
+        out.writeUTF(ClassResolver.instance().getName(value.getClass()));
+
+        try {
+            for (Field field : FIELDS.get(value.getClass())) {
+                ArenaCodec.write(out, field.getType(), field.get(value));
+            }
+        } catch (IllegalAccessException e) {
+            throw new IOException("Unable to write the arena " + value.getUniqueId(), e);
+        }
+    }
+
+    @Override
+    public Arena read(DataInput in) throws IOException {
+        String name = in.readUTF();
+        Arena arena;
+
+        try {
+            Class<?> type = ClassResolver.instance().resolve(name);
+            if (!Arena.class.isAssignableFrom(type))
+                throw new IOException("The type " + name + " isn't an arena.");
+
+            Constructor<?> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            arena = (Arena) constructor.newInstance();
+
+            for (Field field : FIELDS.get(type)) {
+                field.set(arena, ArenaCodec.read(in, field.getType()));
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new IOException("Unable to read an arena of type " + name, e);
+        }
+        return arena;
+    }
+
+    /**
+     * Write a field's value, which may be null unless it's a primitive.
+     */
+    @SuppressWarnings("unchecked")
+    private static void write(DataOutput out, Class<?> type, Object value) throws IOException {
+        if (type == boolean.class) {
+            out.writeBoolean((Boolean) value);
+        } else if (type == byte.class) {
+            out.writeByte((Byte) value);
+        } else if (type == short.class) {
+            out.writeShort((Short) value);
+        } else if (type == char.class) {
+            out.writeChar((Character) value);
+        } else if (type == int.class) {
+            out.writeInt((Integer) value);
+        } else if (type == long.class) {
+            out.writeLong((Long) value);
+        } else if (type == float.class) {
+            out.writeFloat((Float) value);
+        } else if (type == double.class) {
+            out.writeDouble((Double) value);
+        } else if (type == String.class || type.isEnum()) {
+            out.writeBoolean(value != null);
+            if (value != null)
+                out.writeUTF((type == String.class) ? (String) value : ((Enum<?>) value).name());
+        } else {
+            BinarySerializer.instance().write(out, value, (Class<Object>) type);
+        }
+    }
+
+    /**
+     * Read a field's value written by {@link #write(DataOutput, Class, Object)}.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object read(DataInput in, Class<?> type) throws IOException {
+        if (type == boolean.class)
+            return in.readBoolean();
+        if (type == byte.class)
+            return in.readByte();
+        if (type == short.class)
+            return in.readShort();
+        if (type == char.class)
+            return in.readChar();
+        if (type == int.class)
+            return in.readInt();
+        if (type == long.class)
+            return in.readLong();
+        if (type == float.class)
+            return in.readFloat();
+        if (type == double.class)
+            return in.readDouble();
+
+        if (type == String.class || type.isEnum()) {
+            if (!in.readBoolean())
+                return null;
+
+            String value = in.readUTF();
+            try {
+                return (type == String.class) ? value : Enum.valueOf((Class<Enum>) type, value);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Unknown constant " + value + " of " + type.getName(), e);
+            }
+        }
+        return BinarySerializer.instance().read(in, type);
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.core.codecs;
+
+import com.dracade.ember.core.region.CompoundRegion;
+import com.dracade.ember.core.region.Cuboid;
+import com.dracade.ember.core.region.Region;
+import com.dracade.ember.system.BinarySerializer;
+import com.dracade.ember.system.Codec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class RegionCodec implements Codec<Region> {
+
+    // Region types.
+    private static final int CUBOID = 0;
+    private static final int COMPOUND = 1;
+
+    @Override
+    public void write(DataOutput out, Region value) throws IOException {
+        if (value instanceof Cuboid) {
+            Cuboid cuboid = (Cuboid) value;
+
+            out.writeByte(CUBOID);
+            out.writeDouble(cuboid.getMin().getX());
+            out.writeDouble(cuboid.getMin().getY());
+            out.writeDouble(cuboid.getMin().getZ());
+            out.writeDouble(cuboid.getMax().getX());
+            out.writeDouble(cuboid.getMax().getY());
+            out.writeDouble(cuboid.getMax().getZ());
+        } else if (value instanceof CompoundRegion) {
+            List<Region> regions = ((CompoundRegion) value).getRegions();
+
+            out.writeByte(COMPOUND);
+            out.writeInt(regions.size());
+            for (Region region : regions) {
+                this.write(out, region);
+            }
+        } else {
+            throw new IOException("Unable to encode the region " + value.getClass().getName());
+        }
+    }
+
+    @Override
+    public Region read(DataInput in) throws IOException {
+        int type = in.readUnsignedByte();
+
+        switch (type) {
+            case CUBOID:
+                return new Cuboid(in.readDouble(), in.readDouble(), in.readDouble(), in.readDouble(), in.readDouble(), in.readDouble());
+            case COMPOUND:
+                int size = in.readInt();
+                if (size < 0)
+                    throw new IOException("Invalid region count " + size);
+
+                List<Region> regions = new ArrayList<Region>(Math.min(size, BinarySerializer.CAPACITY));
+                for (int i = 0; i < size; i++) {
+                    regions.add(this.read(in));
+                }
+                return new CompoundRegion(regions);
+            default:
+                throw new IOException("Unknown region type " + type);
+        }
+    }
+
+}
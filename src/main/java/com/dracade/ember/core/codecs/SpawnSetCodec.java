@@ -0,0 +1,52 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.core.codecs;
+
+import com.dracade.ember.core.SpawnPoint;
+import com.dracade.ember.core.SpawnSet;
+import com.dracade.ember.system.BinarySerializer;
+import com.dracade.ember.system.Codec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+public class SpawnSetCodec implements Codec<SpawnSet> {
+
+    @Override
+    public void write(DataOutput out, SpawnSet value) throws IOException {
+        BinarySerializer.instance().writeList(out, value.getSpawns(), SpawnPoint.class);
+    }
+
+    @Override
+    public SpawnSet read(DataInput in) throws IOException {
+        SpawnSet spawns = new SpawnSet();
+
+        for (SpawnPoint spawn : BinarySerializer.instance().readList(in, SpawnPoint.class)) {
+            spawns.add(spawn);
+        }
+        return spawns;
+    }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.core.region;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * A region made of the union of other regions.
+ */
+public final class CompoundRegion implements Region {
+
+    private final ImmutableList<Region> regions;
+    private final Cuboid bounds;
+
+    /**
+     * Creates a CompoundRegion.
+     *
+     * @param regions the regions, at least one.
+     */
+    public CompoundRegion(List<? extends Region> regions) {
+        if (regions.isEmpty())
+            throw new IllegalArgumentException("A compound region needs at least one region.");
+
+        this.regions = ImmutableList.copyOf(regions);
+
+        Cuboid bounds = this.regions.get(0).getBounds();
+        for (Region region : this.regions) {
+            bounds = bounds.union(region.getBounds());
+        }
+        this.bounds = bounds;
+    }
+
+    /**
+     * @return the regions making up this region.
+     */
+    public ImmutableList<Region> getRegions() {
+        return this.regions;
+    }
+
+    @Override
+    public boolean contains(double x, double y, double z) {
+        if (!this.bounds.contains(x, y, z))
+            return false;
+
+        for (int i = 0; i < this.regions.size(); i++) {
+            if (this.regions.get(i).contains(x, y, z))
+                return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Cuboid getBounds() {
+        return this.bounds;
+    }
+
+    @Override
+    public void chunks(LongConsumer consumer) {
+        for (Region region : this.regions) {
+            region.chunks(consumer);
+        }
+    }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.core.region;
+
+import com.flowpowered.math.vector.Vector3d;
+
+import java.util.function.LongConsumer;
+
+/**
+ * An axis-aligned box. Both corners are inclusive.
+ */
+public final class Cuboid implements Region {
+
+    private final double minX, minY, minZ;
+    private final double maxX, maxY, maxZ;
+
+    /**
+     * Creates a Cuboid between two opposite corners.
+     *
+     * @param a the first corner.
+     * @param b the second corner.
+     */
+    public Cuboid(Vector3d a, Vector3d b) {
+        this(a.getX(), a.getY(), a.getZ(), b.getX(), b.getY(), b.getZ());
+    }
+
+    /**
+     * Creates a Cuboid between two opposite corners.
+     */
+    public Cuboid(double x1, double y1, double z1, double x2, double y2, double z2) {
+        this.minX = Math.min(x1, x2);
+        this.minY = Math.min(y1, y2);
+        this.minZ = Math.min(z1, z2);
+        this.maxX = Math.max(x1, x2);
+        this.maxY = Math.max(y1, y2);
+        this.maxZ = Math.max(z1, z2);
+    }
+
+    /**
+     * @return the corner with the smallest coordinates.
+     */
+    public Vector3d getMin() {
+        return new Vector3d(this.minX, this.minY, this.minZ);
+    }
+
+    /**
+     * @return the corner with the largest coordinates.
+     */
+    public Vector3d getMax() {
+        return new Vector3d(this.maxX, this.maxY, this.maxZ);
+    }
+
+    /**
+     * Get the smallest cuboid containing this cuboid and another.
+     *
+     * @param other the other cuboid.
+     * @return the union of both cuboids' bounds.
+     */
+    public Cuboid union(Cuboid other) {
+        return new Cuboid(Math.min(this.minX, other.minX), Math.min(this.minY, other.minY), Math.min(this.minZ, other.minZ),
+                Math.max(this.maxX, other.maxX), Math.max(this.maxY, other.maxY), Math.max(this.maxZ, other.maxZ));
+    }
+
+    @Override
+    public boolean contains(double x, double y, double z) {
+        return x >= this.minX && x <= this.maxX && y >= this.minY && y <= this.maxY && z >= this.minZ && z <= this.maxZ;
+    }
+
+    @Override
+    public Cuboid getBounds() {
+        return this;
+    }
+
+    @Override
+    public void chunks(LongConsumer consumer) {
+        int fromX = (int) Math.floor(this.minX) >> 4;
+        int fromZ = (int) Math.floor(this.minZ) >> 4;
+        int toX = (int) Math.floor(this.maxX) >> 4;
+        int toZ = (int) Math.floor(this.maxZ) >> 4;
+
+        for (int x = fromX; x <= toX; x++) {
+            for (int z = fromZ; z <= toZ; z++) {
+                consumer.accept(Region.chunk(x, z));
+            }
+        }
+    }
+
+}
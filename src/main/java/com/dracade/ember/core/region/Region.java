@@ -0,0 +1,81 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.core.region;
+
+import java.util.function.LongConsumer;
+
+/**
+ * A region of space. Regions are used to describe the extent of an
+ * {@link com.dracade.ember.core.Arena}.
+ */
+public interface Region {
+
+    /**
+     * Check whether a position is inside the region.
+     *
+     * @param x the x coordinate.
+     * @param y the y coordinate.
+     * @param z the z coordinate.
+     * @return true if the position is inside the region.
+     */
+    boolean contains(double x, double y, double z);
+
+    /**
+     * @return the smallest cuboid containing the whole region.
+     */
+    Cuboid getBounds();
+
+    /**
+     * Pass the key of every chunk the region overlaps to a consumer. A chunk
+     * may be passed more than once. Keys are built with {@link #chunk(int, int)}.
+     *
+     * @param consumer the consumer of the chunk keys.
+     */
+    default void chunks(LongConsumer consumer) {
+        this.getBounds().chunks(consumer);
+    }
+
+    /**
+     * Get the key of a chunk.
+     *
+     * @param x the chunk's x coordinate.
+     * @param z the chunk's z coordinate.
+     * @return the chunk's key.
+     */
+    static long chunk(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Get the key of the chunk holding a position.
+     *
+     * @param x the x coordinate.
+     * @param z the z coordinate.
+     * @return the chunk's key.
+     */
+    static long chunkAt(double x, double z) {
+        return Region.chunk((int) Math.floor(x) >> 4, (int) Math.floor(z) >> 4);
+    }
+
+}
@@ -2,24 +2,41 @@ package com.dracade.ember.system;
 
 import com.dracade.ember.Ember;
 import com.dracade.ember.exceptions.IllegalBackupDestination;
+import com.dracade.ember.system.backup.ArchiveReader;
+import com.dracade.ember.system.backup.BackupJob;
+import com.dracade.ember.system.backup.BackupManifest;
+import com.dracade.ember.system.backup.BackupVerifier;
+import com.dracade.ember.system.backup.Compression;
+import com.dracade.ember.system.backup.FileTree;
+import com.dracade.ember.system.backup.Selection;
+import com.dracade.ember.system.backup.SnapshotStore;
+import com.dracade.ember.system.backup.TemplateStore;
+import com.dracade.ember.system.backup.Throttle;
+import com.dracade.ember.system.backup.WorldArchiver;
+import com.dracade.ember.system.backup.WorldRestorer;
 import org.spongepowered.api.world.World;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.WriteAbortedException;
 import java.nio.file.FileAlreadyExistsException;
-import java.util.ArrayList;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
-import java.util.zip.ZipOutputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
 
 /**
  * Ember's backup manager. Used for loading and storing world saves.
@@ -43,6 +60,32 @@ public final class Backup {
     // Directory where the worlds are located
     private File worldsDirectory;
 
+    // The pool doing the heavy lifting of backups, and the threads
+    // coordinating them.
+    private final ExecutorService workers;
+    private final ExecutorService coordinator;
+
+    // Archives and restores worlds using the workers.
+    private final WorldArchiver archiver;
+    private final WorldRestorer restorer;
+    private final BackupVerifier verifier;
+
+    // Incremental snapshots of the worlds.
+    private final SnapshotStore snapshots;
+
+    // Pristine copies of the worlds to reset from.
+    private final TemplateStore templates;
+
+    // Directory holding the point-in-time copies of loaded worlds.
+    private final File stagingDirectory;
+
+    // The server thread, and the number of backups that turned off saving.
+    private final Thread serverThread;
+    private int frozen;
+
+    // The last backup of each world to read its staged copy.
+    private final Map<String, CompletableFuture<Void>> readers = new HashMap<String, CompletableFuture<Void>>();
+
     /**
      * Constructs Ember's BackupManager
      *
@@ -65,15 +108,54 @@ public final class Backup {
 
         // Create the serverDir File from that.
         this.worldsDirectory = Ember.game().getSavesDirectory().toFile();
+
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        this.workers = Executors.newFixedThreadPool(threads, Backup.threads("Ember Backup Worker"));
+        this.coordinator = Executors.newCachedThreadPool(Backup.threads("Ember Backup"));
+        this.archiver = new WorldArchiver(this.workers, threads);
+        this.restorer = new WorldRestorer(this.workers, threads);
+        this.verifier = new BackupVerifier(this.workers);
+        this.snapshots = new SnapshotStore(new File(backupDirectory, "store").toPath(), this.workers, Deflater.BEST_SPEED);
+        this.templates = new TemplateStore(new File(backupDirectory, "templates").toPath(), this.workers);
+        this.stagingDirectory = new File(backupDirectory, "staging");
+
+        // Ember creates the backup manager on the server thread.
+        this.serverThread = Thread.currentThread();
     }
 
     /**
-     * Creates a backup of the chosen world. Make sure the chosen world is
-     * unloaded!
+     * Creates a backup of the chosen world. Blocks until the backup is
+     * written.
      *
      * @Param worldName The world's name to backup.
      */
     public void world(String worldName) {
+        this.worldAsync(worldName).future().join();
+    }
+
+    /**
+     * Creates a backup of the chosen world in the background, using the
+     * default compression level.
+     *
+     * @param worldName The world's name to backup.
+     * @return The job writing the backup.
+     */
+    public BackupJob<File> worldAsync(String worldName) {
+        return this.worldAsync(worldName, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Creates a backup of the chosen world in the background. The world is
+     * flushed and staged first, so the backup is consistent while the server
+     * keeps running.
+     *
+     * @param worldName The world's name to backup.
+     * @param level The DEFLATE compression level, from 0 (store) to 9, or -1
+     *        for the default level. Region files are already compressed, so
+     *        low levels are usually much faster for little size difference.
+     * @return The job writing the backup.
+     */
+    public BackupJob<File> worldAsync(String worldName, int level) {
         // Try to get the world to backup
         Optional<World> worldOptional = Ember.game().getServer().getWorld(worldName);
 
@@ -83,18 +165,49 @@ public final class Backup {
         }
 
         // Archive the world.
-        this.compressWorld(worldName, "worlds");
+        return this.compressWorld(worldName, "worlds", ".zip",
+                (source, destination, previous, job) -> this.archiver.archive(source, destination, level, job));
+    }
+
+    /**
+     * Creates a backup of the chosen world in the background, as an Ember
+     * archive. Ember archives are indexed, so single files can be restored
+     * without reading the rest of the archive, and the files that didn't
+     * change since the previous backup are copied from it rather than
+     * compressed again. The world is flushed and staged first, so the backup
+     * is consistent while the server keeps running.
+     *
+     * @param worldName The world's name to backup.
+     * @param compression The codec of the archive, such as
+     *        {@link Compression#LZ4} for fast backups or
+     *        {@link Compression#STORE} for worlds made of region files.
+     * @return The job writing the backup.
+     */
+    public BackupJob<File> worldAsync(String worldName, Compression compression) {
+        // If the world does not exist throw an exception
+        if (!Ember.game().getServer().getWorld(worldName).isPresent()) {
+            throw new RuntimeException(String.format("Unable to backup %s because the world does not exist!", worldName));
+        }
+
+        // Archive the world.
+        return this.compressWorld(worldName, "worlds", ArchiveReader.EXTENSION,
+                (source, destination, previous, job) -> this.archiver.archive(source, destination, compression, previous, job));
     }
 
     /**
      * Creates a compressed backup from the specified source directory and
      * writes it to the specified destinationFolder that is prefixed by the
-     * default backupDirectory
+     * default backupDirectory. The source is staged first, and the archive
+     * is written to a temporary file that only replaces the previous backup
+     * once complete, followed by its manifest.
      *
      * @param source The directory to create a backup from
      * @param destinationFolder The directory to write it to
+     * @param extension The extension of the archive
+     * @param archiving The archive format
+     * @return The job writing the backup.
      */
-    private void compressWorld(String source, String destinationFolder) {
+    private BackupJob<File> compressWorld(String source, String destinationFolder, String extension, Archiving archiving) {
         // Prefix the world with the world directory.
         File sourceFile = new File(worldsDirectory, source);
 
@@ -118,78 +231,199 @@ public final class Backup {
             throw new IllegalBackupDestination("Backup source does not exist! " + sourceFile.getAbsolutePath());
         }
 
-        // Catch any exception that might happen.
-        try {
-            ZipOutputStream zipOutputStream =
-                    new ZipOutputStream(new FileOutputStream(destinationPath.getPath().concat(File.separator + sourceFile.getName() + ".zip")));
+        File destination = new File(destinationPath, sourceFile.getName() + extension);
+        BackupJob<File> job = new BackupJob<File>();
+        CompletableFuture<File> staged = this.stage(source, job.future());
+
+        // The archiver waits on the workers, so it runs on its own thread.
+        this.coordinator.execute(() -> {
+            Path partial = FileTree.sibling(destination.toPath(), "partial");
+            try {
+                BackupManifest manifest = archiving.archive(staged.join().toPath(), partial.toFile(), destination, job);
+
+                // Drop the old manifest first, so it's never taken for the new archive's.
+                Files.deleteIfExists(BackupManifest.of(destination).toPath());
+                Files.move(partial, destination.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                manifest.write(destination);
+                job.future().complete(destination);
+            } catch (Exception e) {
+                job.future().completeExceptionally(e);
+            } finally {
+                Backup.delete(partial);
+            }
+        });
+        return job;
+    }
 
-            // Variables for the reading and writing to the zipentry
-            byte[] buffer = new byte[1024];
-            int len = 0;
+    /**
+     * Takes an incremental snapshot of the chosen world in the background.
+     * Only the files that changed since the previous snapshot are read, and
+     * each distinct file is stored once. Loaded worlds are flushed and staged
+     * first, so the snapshot is consistent.
+     *
+     * @param worldName The world's name to snapshot.
+     * @return The job taking the snapshot, completed with its identifier.
+     */
+    public BackupJob<String> snapshot(String worldName) {
+        return this.snapshot(worldName, Throttle.NONE);
+    }
 
-            String[] filesToCopy = generateFileList(sourceFile);
+    /**
+     * Takes an incremental snapshot of the chosen world in the background,
+     * limiting the rate at which the world is read so that the server's own
+     * saving isn't starved. Loaded worlds are flushed and staged first.
+     *
+     * @param worldName The world's name to snapshot.
+     * @param throttle The limit of the rate at which the world is read.
+     * @return The job taking the snapshot, completed with its identifier.
+     */
+    public BackupJob<String> snapshot(String worldName, Throttle throttle) {
+        File sourceFile = new File(worldsDirectory, worldName);
 
-            // Iterate through all the files and copy them
-            for (String f : filesToCopy) {
+        // Throw a runtime exception if the source file does not exist.
+        if (!sourceFile.isDirectory()) {
+            throw new IllegalBackupDestination("Snapshot source does not exist! " + sourceFile.getAbsolutePath());
+        }
 
-                // Create a new zipEntry and add it to the outputStream but
-                // remove the worldname beginning in the zip file
-                // so we don't end up with a zip called "World.zip" that
-                // contains a directory called "World"
-                ZipEntry ze = new ZipEntry(f.substring(sourceFile.getName().length() + 1));
-                zipOutputStream.putNextEntry(ze);
+        BackupJob<String> job = new BackupJob<String>();
+        CompletableFuture<File> staged = Ember.game().getServer().getWorld(worldName).isPresent()
+                ? this.stage(worldName, job.future()) : CompletableFuture.completedFuture(sourceFile);
 
-                // Open the file to be written to the zip
-                FileInputStream fileInputStream = new FileInputStream(worldsDirectory + File.separator + f);
+        this.coordinator.execute(() -> {
+            try {
+                job.future().complete(this.snapshots.snapshot(worldName, staged.join().toPath(), job, throttle));
+            } catch (Exception e) {
+                job.future().completeExceptionally(e);
+            }
+        });
+        return job;
+    }
 
-                // Loop and write the data we have available
-                while ((len = fileInputStream.read(buffer, 0, buffer.length)) > 0) {
-                    zipOutputStream.write(buffer, 0, len);
-                }
+    /**
+     * Gets the snapshots of a world.
+     *
+     * @param worldName The world's name.
+     * @return The snapshots' identifiers, oldest first.
+     * @throws IOException If the snapshots couldn't be listed.
+     */
+    public List<String> getSnapshots(String worldName) throws IOException {
+        return this.snapshots.getSnapshots(worldName);
+    }
 
-                // Close the stream
-                fileInputStream.close();
-                zipOutputStream.closeEntry();
-            }
+    /**
+     * Restores a snapshot of a world in the background into a new world
+     * folder.
+     *
+     * @param worldName The snapshotted world's name.
+     * @param id The snapshot's identifier.
+     * @param destinationName The destination world name, which must not exist.
+     * @return The job restoring the snapshot, completed with the world folder.
+     */
+    public BackupJob<Path> restoreSnapshot(String worldName, String id, String destinationName) {
+        return this.restoreSnapshot(worldName, id, destinationName, false);
+    }
 
-            // Close the zip file.
-            zipOutputStream.close();
-        } catch (IOException e) {
-            // Print the exception to the console.
-            e.printStackTrace();
+    /**
+     * Restores a snapshot of a world in the background. The snapshot is
+     * restored into a staging folder, then swapped in place of the world.
+     * The destination world must be unloaded when overwriting it.
+     *
+     * @param worldName The snapshotted world's name.
+     * @param id The snapshot's identifier.
+     * @param destinationName The destination world name.
+     * @param overwrite Overwrite destination if it already exists?
+     * @return The job restoring the snapshot, completed with the world folder.
+     */
+    public BackupJob<Path> restoreSnapshot(String worldName, String id, String destinationName, boolean overwrite) {
+        // Swapping the folder of a loaded world corrupts it.
+        if (overwrite && Ember.game().getServer().getWorld(destinationName).isPresent()) {
+            throw new IllegalBackupDestination("Refusing to overwrite a loaded world! " + destinationName);
         }
+
+        Path destination = new File(worldsDirectory, destinationName).toPath();
+        BackupJob<Path> job = new BackupJob<Path>();
+
+        this.coordinator.execute(() -> {
+            Path staging = FileTree.sibling(destination, "restore");
+            try {
+                this.snapshots.restore(worldName, id, staging, job);
+                FileTree.swap(staging, destination, overwrite);
+                job.future().complete(destination);
+            } catch (Exception e) {
+                job.future().completeExceptionally(e);
+            } finally {
+                Backup.delete(staging);
+            }
+        });
+        return job;
     }
 
     /**
-     * Returns a full list of files prefixed by their directories relative to
-     * the starting directory.
+     * @return The store holding the world snapshots.
+     */
+    public SnapshotStore getSnapshotStore() {
+        return this.snapshots;
+    }
+
+    /**
+     * Saves the chosen world as a template in the background, replacing any
+     * template of the same name. Make sure the chosen world is unloaded or
+     * saved!
      *
-     * @param source The starting directory
-     * @return A list of files prefixed with their relative directories
+     * @param worldName The world's name to save as a template.
+     * @return The job saving the template, completed with its name.
      */
-    private String[] generateFileList(File source) {
-        // Create a list to store the entries temporarily
-        List<String> files = new ArrayList<String>();
-
-        // Iterate through the current directory to add files.
-        for (File file : source.listFiles()) {
-            // If the file is a directory then call this function again
-            if (file.isDirectory()) {
-                // Loop through the received files and add them
-                Collections.addAll(files, generateFileList(file));
-            } else {
-                // Get the world's path
-                String path = file.getPath();
-
-                // Remove the worlds directory from the pathname,
-                // so that the zip entry does not prefix everything with the
-                // world directory.
-                files.add(path.substring(this.worldsDirectory.getName().length() + 1, path.length()));
+    public BackupJob<String> template(String worldName) {
+        File sourceFile = new File(worldsDirectory, worldName);
+
+        // Throw a runtime exception if the source file does not exist.
+        if (!sourceFile.isDirectory()) {
+            throw new IllegalBackupDestination("Template source does not exist! " + sourceFile.getAbsolutePath());
+        }
+
+        BackupJob<String> job = new BackupJob<String>();
+        this.coordinator.execute(() -> {
+            try {
+                this.templates.save(worldName, sourceFile.toPath(), job);
+                job.future().complete(worldName);
+            } catch (Exception e) {
+                job.future().completeExceptionally(e);
             }
+        });
+        return job;
+    }
+
+    /**
+     * Resets a world from a template in the background. The world must be
+     * unloaded!
+     *
+     * @param templateName The template's name.
+     * @param worldName The world's name to reset.
+     * @return The job resetting the world, completed with the world folder.
+     */
+    public BackupJob<Path> reset(String templateName, String worldName) {
+        // If the world is loaded throw an exception
+        if (Ember.game().getServer().getWorld(worldName).isPresent()) {
+            throw new RuntimeException(String.format("Unable to reset %s because the world is loaded!", worldName));
         }
 
-        // return an array.
-        return files.toArray(new String[files.size()]);
+        // Throw a runtime exception if the template does not exist.
+        if (!this.templates.exists(templateName)) {
+            throw new IllegalBackupDestination("Template does not exist! " + templateName);
+        }
+
+        Path worldDir = new File(worldsDirectory, worldName).toPath();
+        BackupJob<Path> job = new BackupJob<Path>();
+
+        this.coordinator.execute(() -> {
+            try {
+                this.templates.reset(templateName, worldDir, job);
+                job.future().complete(worldDir);
+            } catch (Exception e) {
+                job.future().completeExceptionally(e);
+            }
+        });
+        return job;
     }
 
     /**
@@ -226,78 +460,287 @@ public final class Backup {
      *         isn't enabled.
      */
     public void load(String backupName, String worldName, boolean overwrite) throws WriteAbortedException {
-        // If the world already exists...
-        if (Ember.game().getServer().getWorld(worldName).isPresent()) {
-            // If we dont want to overwrite the existing file, throw an
-            // exception.
-            if (!overwrite) {
-                throw new WriteAbortedException("Unable to load the file from backup.", new FileAlreadyExistsException("The world already exists."));
-            } else {
-                // Remove the existing world.
-                File existingWorld = new File(worldsDirectory, worldName);
-
-                // Make sure that the folder we're about to remove contains the
-                // two essential world files
-                // so that we don't accidentally remove the wrong folder.
-                if (Arrays.asList(existingWorld.listFiles()).contains("level.dat")
-                        && Arrays.asList(existingWorld.listFiles()).contains("level_sponge.dat")) {
-                    existingWorld.delete();
-                }
+        try {
+            this.loadAsync(backupName, worldName, overwrite).future().join();
+        } catch (CompletionException e) {
+            // Keep the original contract for existing worlds.
+            if (e.getCause() instanceof FileAlreadyExistsException) {
+                throw new WriteAbortedException("Unable to load the file from backup.", (Exception) e.getCause());
             }
+            throw e;
         }
+    }
 
+    /**
+     * Loads a world from the backup folder in the background. The backup is
+     * extracted in parallel into a staging folder and verified, then swapped
+     * in place of the world, so a failed load leaves the world untouched.
+     * The destination world must be unloaded when overwriting it.
+     *
+     * @param backupName The backup world name
+     * @param worldName The destination world name
+     * @param overwrite Overwrite destination if it already exists?
+     * @return The job loading the backup, completed with the world folder.
+     */
+    public BackupJob<Path> loadAsync(String backupName, String worldName, boolean overwrite) {
+        File archive = this.archive(backupName);
         File worldDir = new File(worldsDirectory, worldName);
 
-        if (!worldDir.exists()) {
-            worldDir.mkdir();
+        // Swapping the folder of a loaded world corrupts it.
+        if (overwrite && Ember.game().getServer().getWorld(worldName).isPresent()) {
+            throw new IllegalBackupDestination("Refusing to overwrite a loaded world! " + worldName);
         }
 
-        try {
-            // Try to load the zipfile.
-            ZipFile zipFile = new ZipFile(backupDirectory + File.separator + "worlds" + File.separator + backupName + ".zip");
+        // Make sure that the folder we're about to replace is a world, so
+        // that we don't accidentally remove the wrong folder.
+        if (overwrite && worldDir.exists() && !new File(worldDir, "level.dat").exists()) {
+            throw new IllegalBackupDestination("Refusing to overwrite a folder that isn't a world! " + worldDir.getAbsolutePath());
+        }
 
-            // Get all the entries in the zip file
-            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        BackupJob<Path> job = new BackupJob<Path>();
+        this.coordinator.execute(() -> {
+            try {
+                this.restorer.restore(archive, worldDir.toPath(), overwrite, job);
+                job.future().complete(worldDir.toPath());
+            } catch (Exception e) {
+                job.future().completeExceptionally(e);
+            }
+        });
+        return job;
+    }
 
-            // Variables for reading and writing
-            byte[] buffer = new byte[1024];
-            int len = 0;
+    /**
+     * Restores some files of a world backup into a world, such as a few
+     * regions or the data of a player, leaving its other files untouched.
+     * Only the selected files are read from the archive.
+     *
+     * <p>The world must not be loaded unless only player data is selected,
+     * and a player must be offline while their data is restored, or the
+     * server will overwrite the restored files.</p>
+     *
+     * @param backupName The backup world name
+     * @param worldName The world to restore the files into
+     * @param selection The files to restore
+     * @return The job tracking the restore, completing with the names of the restored files.
+     */
+    public BackupJob<List<String>> restore(String backupName, String worldName, Selection selection) {
+        File archive = this.archive(backupName);
+        File worldDir = new File(worldsDirectory, worldName);
 
-            // While there are more entries.
-            while (entries.hasMoreElements()) {
-                ZipEntry ze = entries.nextElement();
+        if (!new File(worldDir, "level.dat").exists()) {
+            throw new IllegalBackupDestination("Refusing to restore into a folder that isn't a world! " + worldDir.getAbsolutePath());
+        }
 
-                // Get the entry as a file.
-                File entryFile = new File(worldDir, ze.getName());
+        // The server would save over the restored files of a loaded world.
+        if (!selection.isPlayerData() && Ember.game().getServer().getWorld(worldName).isPresent()) {
+            throw new IllegalBackupDestination("Refusing to restore into a loaded world! " + worldName);
+        }
 
-                if (ze.isDirectory()) {
-                    entryFile.mkdirs();
-                } else {
-                    entryFile.getParentFile().mkdirs();
+        BackupJob<List<String>> job = new BackupJob<List<String>>();
+        this.coordinator.execute(() -> {
+            try {
+                job.future().complete(this.restorer.restore(archive, worldDir.toPath(), selection, job));
+            } catch (Exception e) {
+                job.future().completeExceptionally(e);
+            }
+        });
+        return job;
+    }
+
+    /**
+     * Verifies every world backup in the background. Each archive is read in
+     * full, in parallel, and every file is checked against the archive's own
+     * checksums and against the archive's manifest. Backups written before
+     * manifests existed are only checked against their own checksums.
+     *
+     * @return The job verifying the backups, completed with the backups that
+     *         failed verification and why.
+     */
+    public BackupJob<Map<File, IOException>> verify() {
+        File[] files = new File(backupDirectory, "worlds").listFiles((directory, name) ->
+                !name.startsWith(".") && (name.endsWith(".zip") || name.endsWith(ArchiveReader.EXTENSION)));
+        List<File> archives = (files != null) ? Arrays.asList(files) : Collections.<File>emptyList();
+
+        BackupJob<Map<File, IOException>> job = new BackupJob<Map<File, IOException>>();
+        this.coordinator.execute(() -> {
+            try {
+                job.future().complete(this.verifier.verify(archives, job));
+            } catch (Exception e) {
+                job.future().completeExceptionally(e);
+            }
+        });
+        return job;
+    }
+
+    /**
+     * Gets the latest archive of a world backup, either an Ember archive or a
+     * ZIP file.
+     *
+     * @param backupName The backup world name
+     * @return The archive, which may not exist.
+     */
+    private File archive(String backupName) {
+        File worlds = new File(backupDirectory, "worlds");
+        File indexed = new File(worlds, backupName + ArchiveReader.EXTENSION);
+        File zip = new File(worlds, backupName + ".zip");
+
+        return (indexed.exists() && (!zip.exists() || indexed.lastModified() >= zip.lastModified())) ? indexed : zip;
+    }
+
+    /**
+     * Captures a point-in-time copy of a loaded world. Saving is turned off
+     * and the world is flushed on the server thread, the world is cloned or
+     * mirrored into the staging folder, and saving is turned back on as soon
+     * as the copy is done. The slow part of the backup then reads the copy
+     * while the server keeps writing the world.
+     *
+     * <p>The copy is a copy-on-write clone where the file system supports it,
+     * which keeps the pause to milliseconds. Elsewhere, the previous copy is
+     * updated with only the files that changed since. Hardlinks can't be used
+     * since the server rewrites region files in place.</p>
+     *
+     * <p>Backups of a world share its staged copy, so they take turns: a
+     * backup is only staged once the previous one is done reading.</p>
+     *
+     * @param worldName The world's name.
+     * @param done The future completed once the backup is done reading the copy.
+     * @return The future completed with the staged copy.
+     */
+    private CompletableFuture<File> stage(String worldName, CompletableFuture<?> done) {
+        CompletableFuture<Void> released = new CompletableFuture<Void>();
+        CompletableFuture<Void> previous;
+
+        synchronized (this.readers) {
+            previous = this.readers.getOrDefault(worldName, CompletableFuture.completedFuture(null));
+            this.readers.put(worldName, released);
+        }
+        done.whenComplete((result, e) -> {
+            synchronized (this.readers) {
+                this.readers.remove(worldName, released);
+            }
+            released.complete(null);
+        });
+
+        return previous.thenCompose(v -> this.copy(worldName));
+    }
+
+    /**
+     * Flushes a world and copies it into its staged copy.
+     *
+     * @param worldName The world's name.
+     * @return The future completed with the staged copy.
+     */
+    private CompletableFuture<File> copy(String worldName) {
+        Path source = new File(worldsDirectory, worldName).toPath();
+        Path staged = new File(stagingDirectory, worldName).toPath();
+
+        CompletableFuture<Void> flushed = new CompletableFuture<Void>();
+        AtomicBoolean froze = new AtomicBoolean();
+        this.sync(() -> {
+            try {
+                froze.set(true);
+                if (this.frozen++ == 0) {
+                    Backup.console("save-off");
                 }
+                Backup.console("save-all flush");
+                flushed.complete(null);
+            } catch (RuntimeException e) {
+                flushed.completeExceptionally(e);
+            }
+        });
 
-                // Create the output stream for the new file and the input
-                // stream from the zipfile
-                FileOutputStream fileOutputStream = new FileOutputStream(entryFile);
-                InputStream entryInputStream = zipFile.getInputStream(ze);
+        return flushed.thenApplyAsync(v -> {
+            try {
+                Files.createDirectories(stagingDirectory.toPath());
 
-                // While there is something to read then write it to the output
-                // file
-                while ((len = entryInputStream.read(buffer, 0, buffer.length)) > 0) {
-                    fileOutputStream.write(buffer, 0, buffer.length);
+                // Clone next to the previous copy, which is only replaced
+                // once saving is back on.
+                Path clone = FileTree.sibling(staged, "clone");
+                if (FileTree.clone(source, clone)) {
+                    return clone;
                 }
 
-                // Close all the streams.
-                entryInputStream.close();
-                fileOutputStream.close();
+                FileTree.mirror(source, staged, this.workers, new BackupJob<Void>());
+                return staged;
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, this.coordinator).whenComplete((copy, e) -> this.sync(() -> {
+            // Only turn saving back on once every backup is done copying.
+            if (froze.get() && --this.frozen == 0) {
+                Backup.console("save-on");
             }
+        })).thenApply(copy -> {
+            try {
+                if (!copy.equals(staged)) {
+                    FileTree.swap(copy, staged, true);
+                }
+                return staged.toFile();
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /**
+     * Runs a task on the server thread, right away if already on it.
+     *
+     * @param runnable The task.
+     */
+    private void sync(Runnable runnable) {
+        if (Thread.currentThread() == this.serverThread) {
+            runnable.run();
+        } else {
+            Ember.game().getScheduler().createTaskBuilder().name("Ember Backup").execute(runnable).submit(Ember.instance());
+        }
+    }
+
+    /**
+     * Runs a command as the server console.
+     *
+     * @param command The command.
+     */
+    private static void console(String command) {
+        Ember.game().getCommandManager().process(Ember.game().getServer().getConsole(), command);
+    }
 
-            // Close the zip file.
-            zipFile.close();
+    /**
+     * Create a factory of daemon threads.
+     *
+     * @param name the prefix of the threads' names.
+     * @return the thread factory.
+     */
+    private static ThreadFactory threads(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + " #" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
 
+    /**
+     * Deletes a temporary file or folder, logging any failure.
+     *
+     * @param path The file or folder, which may not exist.
+     */
+    private static void delete(Path path) {
+        try {
+            FileTree.delete(path);
         } catch (IOException e) {
-            e.printStackTrace();
+            Ember.instance().getLogger().warn("[Ember]: Unable to delete " + path + ".", e);
         }
     }
 
+    /**
+     * Writes an archive of a directory, given the previous archive it may
+     * copy unchanged files from, and returns its manifest.
+     */
+    @FunctionalInterface
+    private interface Archiving {
+
+        BackupManifest archive(Path source, File destination, File previous, BackupJob<?> job) throws IOException;
+
+    }
+
 }
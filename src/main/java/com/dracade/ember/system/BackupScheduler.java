@@ -0,0 +1,265 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.system;
+
+import com.dracade.ember.Ember;
+import com.dracade.ember.system.backup.BackupJob;
+import com.dracade.ember.system.backup.BackupPolicy;
+import com.dracade.ember.system.backup.SnapshotStore;
+import com.dracade.ember.system.backup.Throttle;
+import org.spongepowered.api.scheduler.Task;
+import org.spongepowered.api.world.World;
+
+import java.io.IOException;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Ember's backup scheduler. Takes incremental snapshots of worlds following
+ * their {@link BackupPolicy}, and deletes the snapshots the policy no longer
+ * keeps.
+ *
+ * <p>Due backups are checked on the server thread every
+ * {@link #CHECK_INTERVAL} seconds, while the snapshots themselves are taken
+ * in the background.</p>
+ */
+public final class BackupScheduler implements Consumer<Task> {
+
+    // BackupScheduler singleton
+    private static BackupScheduler instance;
+
+    /**
+     * @return BackupScheduler singleton instance
+     */
+    public static BackupScheduler instance() {
+        return (BackupScheduler.instance == null) ? (BackupScheduler.instance = new BackupScheduler()) : instance;
+    }
+
+    // How often due backups are checked, in seconds.
+    public static final long CHECK_INTERVAL = 30;
+
+    // The scheduled worlds, indexed by name.
+    private final Map<String, Schedule> schedules;
+
+    // The task checking due backups.
+    private Task task;
+
+    /**
+     * BackupScheduler constructor.
+     */
+    private BackupScheduler() {
+        this.schedules = new ConcurrentHashMap<String, Schedule>();
+    }
+
+    /**
+     * Start checking due backups.
+     *
+     * @param plugin the plugin owning the scheduler's task.
+     */
+    public void start(Object plugin) {
+        if (this.task == null) {
+            this.task = Ember.game().getScheduler().createTaskBuilder().name("Ember Backups")
+                    .interval(CHECK_INTERVAL, TimeUnit.SECONDS).execute(this).submit(plugin);
+        }
+    }
+
+    /**
+     * Stop checking due backups. Running backups are left to finish.
+     */
+    public void stop() {
+        if (this.task != null) {
+            this.task.cancel();
+            this.task = null;
+        }
+    }
+
+    /**
+     * Schedule backups of a world, replacing its previous policy. The first
+     * backup is due right away.
+     *
+     * @param worldName the world's name.
+     * @param policy the backup policy.
+     */
+    public void schedule(String worldName, BackupPolicy policy) {
+        this.schedules.put(worldName, new Schedule(worldName, policy));
+    }
+
+    /**
+     * Stop scheduling backups of a world.
+     *
+     * @param worldName the world's name.
+     * @return true if the world was scheduled.
+     */
+    public boolean unschedule(String worldName) {
+        return this.schedules.remove(worldName) != null;
+    }
+
+    /**
+     * Get the policy of a world.
+     *
+     * @param worldName the world's name.
+     * @return the policy wrapped in an Optional, empty if the world isn't
+     *         scheduled.
+     */
+    public Optional<BackupPolicy> getPolicy(String worldName) {
+        Schedule schedule = this.schedules.get(worldName);
+        return (schedule == null) ? Optional.<BackupPolicy>empty() : Optional.of(schedule.policy);
+    }
+
+    /**
+     * Start the backups that are due.
+     */
+    @Override
+    public void accept(Task task) {
+        long now = System.currentTimeMillis();
+        LocalTime time = LocalTime.now();
+
+        for (Schedule schedule : this.schedules.values()) {
+            if (schedule.running != null && !schedule.running.future().isDone())
+                continue;
+            if (now < schedule.due || !schedule.policy.allows(time))
+                continue;
+
+            if (BackupScheduler.busy(schedule.world)) {
+                if (schedule.policy.getBusy() == BackupPolicy.Busy.SKIP)
+                    schedule.due = now + schedule.policy.getInterval().toMillis();
+                continue;
+            }
+
+            schedule.due = now + schedule.policy.getInterval().toMillis();
+            try {
+                schedule.running = this.backup(schedule);
+            } catch (RuntimeException e) {
+                Ember.instance().getLogger().error("[Ember]: Unable to back up " + schedule.world + ".", e);
+            }
+        }
+    }
+
+    /**
+     * Take a backup of a world, then apply its retention policy.
+     *
+     * @param schedule the world's schedule.
+     * @return the job taking the backup.
+     */
+    private BackupJob<String> backup(Schedule schedule) {
+        BackupPolicy policy = schedule.policy;
+        Throttle throttle = (policy.getBytesPerSecond() > 0) ? new Throttle(policy.getBytesPerSecond()) : Throttle.NONE;
+
+        BackupJob<String> job = Ember.backup().snapshot(schedule.world, throttle);
+        job.future().whenComplete((id, e) -> {
+            if (e != null) {
+                Ember.instance().getLogger().error("[Ember]: Unable to back up " + schedule.world + ".", e);
+                return;
+            }
+
+            try {
+                SnapshotStore store = Ember.backup().getSnapshotStore();
+                List<String> ids = store.getSnapshots(schedule.world);
+                Set<String> kept = BackupScheduler.retained(ids, policy.getHourly(), policy.getDaily());
+
+                boolean deleted = false;
+                for (String old : ids) {
+                    if (!kept.contains(old))
+                        deleted |= store.delete(schedule.world, old);
+                }
+                if (deleted)
+                    store.collect();
+            } catch (IOException | RuntimeException ex) {
+                Ember.instance().getLogger().error("[Ember]: Unable to delete old backups of " + schedule.world + ".", ex);
+            }
+        });
+        return job;
+    }
+
+    /**
+     * Check whether a minigame is running in a world.
+     *
+     * @param worldName the world's name.
+     * @return true if an arena of the world is running a minigame.
+     */
+    private static boolean busy(String worldName) {
+        Optional<World> world = Ember.game().getServer().getWorld(worldName);
+        return world.isPresent() && !Ember.registry().getArenas(world.get()).isEmpty();
+    }
+
+    /**
+     * Get the snapshots kept by a retention policy: the latest snapshot, and
+     * the latest snapshot of each of the last hours and days that have one.
+     *
+     * @param ids the snapshots' identifiers, oldest first.
+     * @param hourly the number of hourly snapshots to keep.
+     * @param daily the number of daily snapshots to keep.
+     * @return the identifiers of the snapshots to keep.
+     */
+    static Set<String> retained(List<String> ids, int hourly, int daily) {
+        Set<String> kept = new HashSet<String>();
+        Set<String> hours = new HashSet<String>();
+        Set<String> days = new HashSet<String>();
+
+        List<String> newest = new ArrayList<String>(ids);
+        Collections.reverse(newest);
+
+        for (String id : newest) {
+            // Identifiers start with "yyyyMMdd-HH".
+            if (kept.isEmpty())
+                kept.add(id);
+            if (hours.size() < hourly && hours.add(id.substring(0, 11)))
+                kept.add(id);
+            if (days.size() < daily && days.add(id.substring(0, 8)))
+                kept.add(id);
+        }
+        return kept;
+    }
+
+    /**
+     * The backups of a world.
+     */
+    private static final class Schedule {
+
+        private final String world;
+        private final BackupPolicy policy;
+
+        // When the next backup is due.
+        private volatile long due;
+
+        // The backup being taken, if any.
+        private volatile BackupJob<String> running;
+
+        private Schedule(String world, BackupPolicy policy) {
+            this.world = world;
+            this.policy = policy;
+        }
+
+    }
+
+}
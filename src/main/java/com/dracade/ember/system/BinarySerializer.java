@@ -0,0 +1,319 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.system;
+
+import com.dracade.ember.core.Arena;
+import com.dracade.ember.core.SpawnPoint;
+import com.dracade.ember.core.SpawnSet;
+import com.dracade.ember.core.WorldReference;
+import com.dracade.ember.core.codecs.ArenaCodec;
+import com.dracade.ember.core.codecs.LocationCodec;
+import com.dracade.ember.core.codecs.RegionCodec;
+import com.dracade.ember.core.codecs.SpawnPointCodec;
+import com.dracade.ember.core.codecs.SpawnSetCodec;
+import com.dracade.ember.core.codecs.UUIDCodec;
+import com.dracade.ember.core.codecs.Vector3dCodec;
+import com.dracade.ember.core.codecs.WorldCodec;
+import com.dracade.ember.core.codecs.WorldReferenceCodec;
+import com.dracade.ember.core.region.Region;
+import com.flowpowered.math.vector.Vector3d;
+import org.spongepowered.api.world.Location;
+import org.spongepowered.api.world.World;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A class to handle binary object serialization. A compact alternative to the
+ * JSON produced by the {@link Serializer}, mainly used for spawn data and for
+ * syncing arena state between servers.
+ *
+ * <p>Every encoded object starts with a header holding a magic number, the
+ * format version and the object's type, written as its
+ * {@link ClassResolver} alias when it has one. Values are written as fixed-width
+ * primitives, and worlds are written as their unique identifier.</p>
+ */
+public final class BinarySerializer {
+
+    // BinarySerializer singleton
+    private static BinarySerializer instance;
+
+    /**
+     * @return BinarySerializer singleton instance
+     */
+    public static BinarySerializer instance() {
+        return (BinarySerializer.instance == null) ? (BinarySerializer.instance = new BinarySerializer()) : instance;
+    }
+
+    // Header of the format, "EMBR".
+    private static final int MAGIC = 0x454D4252;
+
+    // The version of the format written.
+    public static final int VERSION = 1;
+
+    // The most list elements allocated up front. Sizes are read from the
+    // input, so larger lists grow as their elements are actually read.
+    public static final int CAPACITY = 1024;
+
+    // The registered codecs, indexed by their type.
+    private final Map<Class<?>, Codec<?>> codecs;
+
+    // The codecs found for unregistered subtypes, discarded whenever a codec
+    // is registered or unregistered.
+    private final Map<Class<?>, Codec<?>> derived;
+
+    /**
+     * BinarySerializer constructor.
+     */
+    private BinarySerializer() {
+        this.codecs = new ConcurrentHashMap<Class<?>, Codec<?>>();
+        this.derived = new ConcurrentHashMap<Class<?>, Codec<?>>();
+
+        this.register(UUID.class, UUIDCodec.class);
+        this.register(Vector3d.class, Vector3dCodec.class);
+        this.register(World.class, WorldCodec.class);
+        this.register(WorldReference.class, WorldReferenceCodec.class);
+        this.register(Location.class, LocationCodec.class);
+        this.register(SpawnPoint.class, SpawnPointCodec.class);
+        this.register(SpawnSet.class, SpawnSetCodec.class);
+        this.register(Region.class, RegionCodec.class);
+        this.register(Arena.class, ArenaCodec.class);
+    }
+
+    /**
+     * Register a Codec.
+     *
+     * @param object the object to encode.
+     * @param codec the codec's class.
+     * @param <T>
+     * @return true if the codec was registered successfully.
+     */
+    public synchronized <T extends Codec> boolean register(Class<?> object, Class<T> codec) {
+        if (!this.codecs.containsKey(object)) {
+            try {
+                this.codecs.put(object, codec.newInstance());
+                this.derived.clear();
+            } catch (InstantiationException | IllegalAccessException e) {
+                throw new IllegalArgumentException("Unable to instantiate the codec " + codec.getName(), e);
+            }
+        }
+        return this.codecs.containsKey(object);
+    }
+
+    /**
+     * Unregister a Codec.
+     *
+     * @param object the object the codec encodes.
+     * @return true if the codec was unregistered successfully.
+     */
+    public synchronized boolean unregister(Class<?> object) {
+        if (this.codecs.remove(object) != null) {
+            this.derived.clear();
+        }
+        return !this.codecs.containsKey(object);
+    }
+
+    /**
+     * Get the codec of a type. Like Gson's hierarchy adapters, a codec
+     * registered for a supertype is used when no codec is registered for the
+     * type itself, picking the most specific supertype.
+     *
+     * @param type the type.
+     * @param <T> the type.
+     * @return the codec.
+     * @throws IllegalArgumentException if no codec is registered for the type.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Codec<T> codec(Class<T> type) {
+        Codec<?> codec = this.codecs.get(type);
+
+        if (codec == null)
+            codec = this.derived.get(type);
+
+        if (codec == null) {
+            synchronized (this) {
+                Class<?> closest = null;
+                for (Class<?> registered : this.codecs.keySet()) {
+                    if (registered.isAssignableFrom(type) && (closest == null || closest.isAssignableFrom(registered)))
+                        closest = registered;
+                }
+
+                if (closest != null) {
+                    codec = this.codecs.get(closest);
+                    this.derived.put(type, codec);
+                }
+            }
+        }
+
+        if (codec == null)
+            throw new IllegalArgumentException("There is no codec registered for " + type.getName());
+
+        return (Codec<T>) codec;
+    }
+
+    /**
+     * Encode an object, along with the format header and its type.
+     *
+     * @param value the object.
+     * @return the encoded bytes.
+     * @throws IOException if the object couldn't be encoded.
+     */
+    public byte[] encode(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        this.encode(new DataOutputStream(bytes), value);
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Encode an object, along with the format header and its type.
+     *
+     * @param out the output.
+     * @param value the object.
+     * @throws IOException if the object couldn't be encoded.
+     */
+    @SuppressWarnings("unchecked")
+    public void encode(DataOutput out, Object value) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeUTF(ClassResolver.instance().getName(value.getClass()));
+        ((Codec<Object>) this.codec(value.getClass())).write(out, value);
+    }
+
+    /**
+     * Decode an object encoded with {@link #encode(Object)}.
+     *
+     * @param bytes the encoded bytes.
+     * @return the object.
+     * @throws IOException if the data is invalid or couldn't be decoded.
+     */
+    public Object decode(byte[] bytes) throws IOException {
+        return this.decode(new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
+
+    /**
+     * Decode an object encoded with {@link #encode(DataOutput, Object)}.
+     *
+     * @param in the input.
+     * @return the object.
+     * @throws IOException if the data is invalid or couldn't be decoded.
+     */
+    public Object decode(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC)
+            throw new IOException("The data provided isn't in Ember's binary format.");
+
+        int version = in.readUnsignedShort();
+        if (version > VERSION)
+            throw new IOException("The data provided uses version " + version + " of the binary format, only " + VERSION + " is supported.");
+
+        String name = in.readUTF();
+        try {
+            return this.codec(ClassResolver.instance().resolve(name)).read(in);
+        } catch (ClassNotFoundException e) {
+            throw new IOException("The type " + name + " of the data provided wasn't found.", e);
+        }
+    }
+
+    /**
+     * Write a value of a known type, which may be null. Used by codecs to
+     * write their fields.
+     *
+     * @param out the output.
+     * @param value the value.
+     * @param type the value's type.
+     * @param <T> the value's type.
+     * @throws IOException if the value couldn't be written.
+     */
+    public <T> void write(DataOutput out, T value, Class<T> type) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            this.codec(type).write(out, value);
+        }
+    }
+
+    /**
+     * Read a value written with {@link #write(DataOutput, Object, Class)}.
+     *
+     * @param in the input.
+     * @param type the value's type.
+     * @param <T> the value's type.
+     * @return the value, or null.
+     * @throws IOException if the value couldn't be read.
+     */
+    public <T> T read(DataInput in, Class<T> type) throws IOException {
+        return in.readBoolean() ? this.codec(type).read(in) : null;
+    }
+
+    /**
+     * Write a list of values of a known type. Used by codecs to write their
+     * fields.
+     *
+     * @param out the output.
+     * @param values the values.
+     * @param type the values' type.
+     * @param <T> the values' type.
+     * @throws IOException if the values couldn't be written.
+     */
+    public <T> void writeList(DataOutput out, List<T> values, Class<T> type) throws IOException {
+        Codec<T> codec = this.codec(type);
+
+        out.writeInt(values.size());
+        for (T value : values) {
+            codec.write(out, value);
+        }
+    }
+
+    /**
+     * Read a list written with {@link #writeList(DataOutput, List, Class)}.
+     *
+     * @param in the input.
+     * @param type the values' type.
+     * @param <T> the values' type.
+     * @return the values.
+     * @throws IOException if the values couldn't be read.
+     */
+    public <T> List<T> readList(DataInput in, Class<T> type) throws IOException {
+        Codec<T> codec = this.codec(type);
+
+        int size = in.readInt();
+        if (size < 0)
+            throw new IOException("Invalid list size " + size);
+
+        List<T> values = new ArrayList<T>(Math.min(size, CAPACITY));
+        for (int i = 0; i < size; i++) {
+            values.add(codec.read(in));
+        }
+        return values;
+    }
+
+}
@@ -0,0 +1,235 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.system;
+
+import org.spongepowered.api.block.BlockState;
+import org.spongepowered.api.world.World;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A journal of the original block states of an arena, used to roll the arena
+ * back once its minigame stops.
+ *
+ * <p>Only the first change of each position is recorded. Positions are packed
+ * into longs and block states into indexes of a palette, so a change costs
+ * twelve bytes plus a slot in the set of recorded positions.</p>
+ *
+ * <p>The journal must only be used from the server thread.</p>
+ */
+public final class BlockJournal {
+
+    // Marks the free slots of the set of recorded positions. Its position
+    // lies far beyond the world border.
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    // The palette of the recorded block states.
+    private final List<BlockState> palette;
+    private final Map<BlockState, Integer> indexes;
+
+    // The recorded positions and the index of their original state.
+    private long[] positions;
+    private int[] states;
+    private int size;
+
+    // An open addressing set of the recorded positions.
+    private long[] recorded;
+
+    /**
+     * BlockJournal constructor.
+     */
+    public BlockJournal() {
+        this.palette = new ArrayList<BlockState>();
+        this.indexes = new HashMap<BlockState, Integer>();
+        this.positions = new long[256];
+        this.states = new int[256];
+        this.recorded = BlockJournal.table(512);
+    }
+
+    /**
+     * Record the original state of a position, unless the position was
+     * already recorded.
+     *
+     * @param x the block's x coordinate.
+     * @param y the block's y coordinate.
+     * @param z the block's z coordinate.
+     * @param original the block's state before its first change.
+     * @return true if the position was recorded.
+     */
+    public boolean record(int x, int y, int z, BlockState original) {
+        long position = BlockJournal.pack(x, y, z);
+        if (!this.add(position))
+            return false;
+
+        Integer index = this.indexes.get(original);
+        if (index == null) {
+            index = this.palette.size();
+            this.palette.add(original);
+            this.indexes.put(original, index);
+        }
+
+        if (this.size == this.positions.length) {
+            this.positions = Arrays.copyOf(this.positions, this.size * 2);
+            this.states = Arrays.copyOf(this.states, this.size * 2);
+        }
+        this.positions[this.size] = position;
+        this.states[this.size] = index;
+        this.size++;
+        return true;
+    }
+
+    /**
+     * Check whether a position was recorded.
+     *
+     * @param x the block's x coordinate.
+     * @param y the block's y coordinate.
+     * @param z the block's z coordinate.
+     * @return true if the position was recorded.
+     */
+    public boolean isRecorded(int x, int y, int z) {
+        long position = BlockJournal.pack(x, y, z);
+        int mask = this.recorded.length - 1;
+
+        for (int slot = BlockJournal.hash(position) & mask; this.recorded[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (this.recorded[slot] == position)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of positions left to roll back.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return true if there's nothing to roll back.
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Roll back some of the recorded positions, most recent first.
+     *
+     * @param world the arena's world.
+     * @param budget the maximum number of blocks to restore.
+     * @return the number of blocks restored.
+     */
+    public int rollback(World world, int budget) {
+        int restored = 0;
+
+        while (this.size > 0 && restored < budget) {
+            this.size--;
+            long position = this.positions[this.size];
+            world.setBlock(BlockJournal.x(position), BlockJournal.y(position), BlockJournal.z(position), this.palette.get(this.states[this.size]));
+            restored++;
+        }
+
+        // Let go of the palette and set once everything is restored.
+        if (this.size == 0)
+            this.clear();
+
+        return restored;
+    }
+
+    /**
+     * Forget every recorded position.
+     */
+    public void clear() {
+        this.palette.clear();
+        this.indexes.clear();
+        this.positions = new long[256];
+        this.states = new int[256];
+        this.size = 0;
+        this.recorded = BlockJournal.table(512);
+    }
+
+    /**
+     * Add a position to the set of recorded positions.
+     *
+     * @param position the packed position.
+     * @return false if the position was already in the set.
+     */
+    private boolean add(long position) {
+        // Keep the set at most half full.
+        if ((this.size + 1) * 2 > this.recorded.length) {
+            long[] old = this.recorded;
+            this.recorded = BlockJournal.table(old.length * 2);
+            for (long p : old) {
+                if (p != EMPTY)
+                    this.insert(p);
+            }
+        }
+        return this.insert(position);
+    }
+
+    private boolean insert(long position) {
+        int mask = this.recorded.length - 1;
+        int slot = BlockJournal.hash(position) & mask;
+
+        while (this.recorded[slot] != EMPTY) {
+            if (this.recorded[slot] == position)
+                return false;
+            slot = (slot + 1) & mask;
+        }
+        this.recorded[slot] = position;
+        return true;
+    }
+
+    private static long[] table(int size) {
+        long[] table = new long[size];
+        Arrays.fill(table, EMPTY);
+        return table;
+    }
+
+    private static int hash(long position) {
+        long h = position * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    // Positions are packed as 26 bits of x, 26 bits of z and 12 bits of y.
+    private static long pack(int x, int y, int z) {
+        return ((long) x & 0x3FFFFFF) << 38 | ((long) z & 0x3FFFFFF) << 12 | (y & 0xFFF);
+    }
+
+    private static int x(long position) {
+        return (int) (position >> 38);
+    }
+
+    private static int y(long position) {
+        return (int) (position << 52 >> 52);
+    }
+
+    private static int z(long position) {
+        return (int) (position << 26 >> 38);
+    }
+
+}
@@ -0,0 +1,180 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.system;
+
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves the class names found in serialized data. Lookups are cached per
+ * class loader, including the names that couldn't be found, so plugins that
+ * are reloaded with a new class loader never see classes from the old one.
+ *
+ * <p>Classes can also be registered under a short alias, which is written
+ * instead of their fully qualified name.</p>
+ */
+public final class ClassResolver {
+
+    // ClassResolver singleton
+    private static ClassResolver instance;
+
+    /**
+     * @return ClassResolver singleton instance
+     */
+    public static ClassResolver instance() {
+        return (ClassResolver.instance == null) ? (ClassResolver.instance = new ClassResolver()) : instance;
+    }
+
+    // Cached lookups for each class loader. Values are either a weak
+    // reference to the class, so that the class doesn't keep its loader's
+    // entry alive, or the exception thrown when it couldn't be found.
+    private final Map<ClassLoader, Map<String, Object>> cache;
+
+    // Registered aliases and their classes.
+    private final Map<String, Class<?>> aliases;
+    private final Map<Class<?>, String> names;
+
+    /**
+     * ClassResolver constructor.
+     */
+    private ClassResolver() {
+        this.cache = Collections.synchronizedMap(new WeakHashMap<ClassLoader, Map<String, Object>>());
+        this.aliases = new ConcurrentHashMap<String, Class<?>>();
+        this.names = new ConcurrentHashMap<Class<?>, String>();
+    }
+
+    /**
+     * Register an alias for a class, replacing any class previously
+     * registered under it.
+     *
+     * @param alias the alias.
+     * @param type the class.
+     */
+    public synchronized void alias(String alias, Class<?> type) {
+        Class<?> previous = this.aliases.put(alias, type);
+
+        if (previous != null) {
+            this.names.remove(previous);
+        }
+        this.names.put(type, alias);
+    }
+
+    /**
+     * Unregister an alias.
+     *
+     * @param alias the alias.
+     * @return true if the alias was registered.
+     */
+    public synchronized boolean unalias(String alias) {
+        Class<?> type = this.aliases.remove(alias);
+
+        if (type == null)
+            return false;
+
+        this.names.remove(type);
+        return true;
+    }
+
+    /**
+     * Get the name a class is written as.
+     *
+     * @param type the class.
+     * @return the class's alias, or its fully qualified name.
+     */
+    public String getName(Class<?> type) {
+        String alias = this.names.get(type);
+        return (alias != null) ? alias : type.getName();
+    }
+
+    /**
+     * Resolve a class by its alias or fully qualified name, using Ember's
+     * class loader. The context class loader isn't used, since lookups also
+     * happen on pool threads that can't see the plugins' classes.
+     *
+     * @param name the alias or name.
+     * @return the class.
+     * @throws ClassNotFoundException if the class wasn't found.
+     */
+    public Class<?> resolve(String name) throws ClassNotFoundException {
+        return this.resolve(name, ClassResolver.class.getClassLoader());
+    }
+
+    /**
+     * Resolve a class by its alias or fully qualified name.
+     *
+     * @param name the alias or name.
+     * @param loader the class loader to use.
+     * @return the class.
+     * @throws ClassNotFoundException if the class wasn't found.
+     */
+    @SuppressWarnings("unchecked")
+    public Class<?> resolve(String name, ClassLoader loader) throws ClassNotFoundException {
+        Class<?> alias = this.aliases.get(name);
+
+        if (alias != null)
+            return alias;
+
+        Map<String, Object> classes = this.cache.get(loader);
+
+        if (classes == null) {
+            synchronized (this.cache) {
+                classes = this.cache.get(loader);
+                if (classes == null) {
+                    this.cache.put(loader, classes = new ConcurrentHashMap<String, Object>());
+                }
+            }
+        }
+
+        Object result = classes.get(name);
+
+        if (result instanceof ClassNotFoundException)
+            throw new ClassNotFoundException(name, (ClassNotFoundException) result);
+
+        Class<?> type = (result != null) ? ((WeakReference<Class<?>>) result).get() : null;
+
+        if (type == null) {
+            try {
+                type = Class.forName(name, true, loader);
+            } catch (ClassNotFoundException e) {
+                classes.put(name, e);
+                throw new ClassNotFoundException(name, e);
+            }
+            classes.put(name, new WeakReference<Class<?>>(type));
+        }
+
+        return type;
+    }
+
+    /**
+     * Discard every cached lookup, for instance after a plugin made a
+     * previously missing class available.
+     */
+    public void invalidate() {
+        this.cache.clear();
+    }
+
+}
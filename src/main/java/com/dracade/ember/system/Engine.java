@@ -0,0 +1,433 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.system;
+
+import com.dracade.ember.Ember;
+import com.dracade.ember.core.Arena;
+import com.dracade.ember.core.Minigame;
+import org.spongepowered.api.event.Event;
+import org.spongepowered.api.scheduler.Task;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Ember's minigame engine. Every registered minigame is executed through the
+ * engine, either from its own Sponge task or, for minigames that don't use
+ * {@link com.dracade.ember.core.Timing#SECONDS}, from the engine's single
+ * shared task using a {@link TimingWheel} to find the minigames due each
+ * tick.
+ *
+ * <p>Asynchronous minigames are run on a bounded worker pool, and their
+ * {@link Mutations} are applied on the server thread at the start of every
+ * tick.</p>
+ *
+ * <p>The duration of every run is recorded in the minigame's {@link Metrics},
+ * and a summary of the slowest minigames is logged periodically.</p>
+ *
+ * <p>Apart from {@link #queue(Minigame)}, the engine must only be used from
+ * the server thread.</p>
+ */
+public final class Engine implements Consumer<Task> {
+
+    // Engine singleton
+    private static Engine instance;
+
+    /**
+     * @return Engine singleton instance
+     */
+    public static Engine instance() {
+        return (Engine.instance == null) ? (Engine.instance = new Engine()) : instance;
+    }
+
+    // The wheel holding the minigames on the shared task.
+    private final TimingWheel<Execution> wheel;
+
+    // Every registered minigame.
+    private final Map<Minigame, Execution> executions;
+
+    // The executions whose mutations are applied every tick.
+    private final List<Execution> queued;
+
+    // How often the slowest minigames are logged, in minutes.
+    private static final long REPORT_INTERVAL = 5;
+
+    // How many minigames are included in a report.
+    private static final int REPORT_SIZE = 5;
+
+    // The pool running asynchronous minigames.
+    private ExecutorService workers;
+
+    // The task driving the engine.
+    private Task task;
+
+    // The task logging the slowest minigames.
+    private Task reporter;
+
+    // Used to spread minigames with the same interval across ticks.
+    private long spread;
+
+    /**
+     * Engine constructor.
+     */
+    private Engine() {
+        this.wheel = new TimingWheel<Execution>();
+        this.executions = new HashMap<Minigame, Execution>();
+        this.queued = new ArrayList<Execution>();
+    }
+
+    /**
+     * Start the engine.
+     *
+     * @param plugin the plugin owning the engine's task.
+     */
+    public void start(Object plugin) {
+        if (this.task == null) {
+            int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+            this.workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<Runnable>(1024), new Workers());
+            this.task = Ember.game().getScheduler().createTaskBuilder().name("Ember").intervalTicks(1).execute(this).submit(plugin);
+            this.reporter = Ember.game().getScheduler().createTaskBuilder().name("Ember Metrics").async()
+                    .delay(REPORT_INTERVAL, TimeUnit.MINUTES).interval(REPORT_INTERVAL, TimeUnit.MINUTES).execute(this::report).submit(plugin);
+        }
+    }
+
+    /**
+     * Stop the engine, waiting briefly for running asynchronous minigames.
+     */
+    public void stop() {
+        if (this.task != null) {
+            this.task.cancel();
+            this.task = null;
+            this.reporter.cancel();
+            this.reporter = null;
+
+            this.workers.shutdown();
+            try {
+                this.workers.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * @return the task driving the engine.
+     */
+    public Task getTask() {
+        return this.task;
+    }
+
+    /**
+     * Register a minigame with the engine. Minigames using
+     * {@link com.dracade.ember.core.Timing#SECONDS} must then be executed by
+     * a task running the returned execution, every other minigame is
+     * scheduled on the shared task.
+     *
+     * @param minigame the minigame.
+     * @return the minigame's execution.
+     */
+    public Execution register(Minigame minigame) {
+        Execution execution = this.executions.get(minigame);
+
+        if (execution != null)
+            return execution;
+
+        execution = new Execution(minigame);
+        this.executions.put(minigame, execution);
+        this.queued.add(execution);
+
+        if (minigame.timing().isShared()) {
+            long delay = minigame.timing().toTicks(minigame.delay());
+
+            // Repeating minigames have at least one tick between runs.
+            if (minigame.interval() > 0) {
+                execution.interval = Math.max(minigame.timing().toTicks(minigame.interval()), 1);
+
+                // Offset the first run so that minigames sharing an interval
+                // don't all run on the same tick.
+                delay += (this.spread++) % execution.interval;
+            }
+
+            execution.timer = this.wheel.schedule(execution, delay);
+        }
+        return execution;
+    }
+
+    /**
+     * Unregister a minigame from the engine, discarding its pending
+     * mutations.
+     *
+     * @param minigame the minigame.
+     * @return true if the minigame was registered.
+     */
+    public boolean unregister(Minigame minigame) {
+        Execution execution = this.executions.remove(minigame);
+
+        if (execution == null)
+            return false;
+
+        if (execution.timer != null) {
+            this.wheel.cancel(execution.timer);
+        }
+
+        execution.mutations.clear();
+        this.queued.remove(execution);
+        return true;
+    }
+
+    /**
+     * Check whether a minigame is registered with the engine.
+     *
+     * @param minigame the minigame.
+     * @return true if the minigame is registered.
+     */
+    public boolean isRegistered(Minigame minigame) {
+        return this.executions.containsKey(minigame);
+    }
+
+    /**
+     * Get the mutation queue of a minigame. Safe to call from any thread.
+     *
+     * @param minigame the minigame.
+     * @return the minigame's mutation queue wrapped in an Optional.
+     */
+    public Optional<Mutations> queue(Minigame minigame) {
+        Optional<Registry.Entry> entry = Registry.instance().get(minigame);
+        return entry.isPresent() ? Optional.of(entry.get().getExecution().mutations) : Optional.<Mutations>empty();
+    }
+
+    /**
+     * Log the minigames with the slowest runs. Safe to call from any thread.
+     */
+    public void report() {
+        List<Registry.Entry> entries = new ArrayList<Registry.Entry>();
+
+        for (Arena arena : Registry.instance().getArenas()) {
+            Optional<Registry.Entry> entry = Registry.instance().get(arena.getUniqueId());
+            if (entry.isPresent() && entry.get().getExecution().metrics.getRuns().getCount() > 0) {
+                entries.add(entry.get());
+            }
+        }
+
+        if (entries.isEmpty())
+            return;
+
+        entries.sort(Comparator.comparingLong((Registry.Entry e) -> e.getExecution().metrics.getRuns().getPercentile(99)).reversed());
+
+        StringBuilder builder = new StringBuilder("[Ember]: Slowest minigames (p50/p99/max):");
+        for (Registry.Entry entry : entries.subList(0, Math.min(REPORT_SIZE, entries.size()))) {
+            builder.append(' ').append(entry.getArena().getName()).append(" [").append(entry.getExecution().metrics).append(']');
+        }
+        Ember.instance().getLogger().info(builder.toString());
+    }
+
+    @Override
+    public void accept(Task task) {
+        // Apply the mutations published since the last tick.
+        for (int i = 0; i < this.queued.size(); i++) {
+            Execution execution = this.queued.get(i);
+            execution.mutations.flush(execution.minigame);
+        }
+
+        this.wheel.advance(this::fire);
+    }
+
+    /**
+     * Run a minigame on the shared task, and reschedule it if it repeats.
+     *
+     * @param timer the minigame's timer.
+     */
+    private void fire(TimingWheel.Timer<Execution> timer) {
+        Execution execution = timer.getValue();
+
+        this.run(execution, this.task);
+
+        // The minigame may have been unregistered while it ran.
+        if (this.executions.get(execution.minigame) != execution)
+            return;
+
+        if (execution.interval > 0) {
+            // Keep a fixed rate by scheduling from the missed deadline.
+            this.wheel.schedule(timer, timer.getDeadline() + execution.interval - this.wheel.now());
+        } else {
+            execution.timer = null;
+        }
+    }
+
+    /**
+     * Run a minigame, handing it to the worker pool if it's asynchronous.
+     *
+     * @param execution the minigame's execution.
+     * @param task the task running the minigame.
+     */
+    private void run(Execution execution, Task task) {
+        if (!execution.minigame.async()) {
+            execution.execute(task);
+            return;
+        }
+
+        // Skip this run if the previous one hasn't finished yet.
+        if (!execution.running.compareAndSet(false, true)) {
+            execution.metrics.skip();
+            return;
+        }
+
+        try {
+            this.workers.execute(() -> {
+                try {
+                    execution.execute(task);
+                } finally {
+                    execution.running.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            execution.running.set(false);
+            execution.metrics.skip();
+        }
+    }
+
+    /**
+     * Report an exception thrown by a minigame.
+     *
+     * @param owner the minigame.
+     * @param e the exception.
+     */
+    static void error(Object owner, Exception e) {
+        Ember.instance().getLogger().error("[Ember]: Minigame " + owner.getClass().getName() + " threw an exception.", e);
+    }
+
+    /**
+     * A minigame registered with the engine.
+     */
+    public final class Execution implements Consumer<Task> {
+
+        private final Minigame minigame;
+        private final Mutations mutations;
+        private final AtomicBoolean running;
+        private final Metrics metrics;
+
+        // Shared task scheduling.
+        private long interval;
+        private TimingWheel.Timer<Execution> timer;
+
+        /**
+         * Execution constructor.
+         *
+         * @param minigame the minigame.
+         */
+        private Execution(Minigame minigame) {
+            this.minigame = minigame;
+            this.mutations = new Mutations();
+            this.running = new AtomicBoolean();
+
+            this.metrics = new Metrics(TimeUnit.MILLISECONDS.toNanos(minigame.timing().toMillis(minigame.interval())));
+        }
+
+        /**
+         * @return the minigame's mutation queue.
+         */
+        public Mutations getMutations() {
+            return this.mutations;
+        }
+
+        /**
+         * @return the minigame's timing metrics.
+         */
+        public Metrics getMetrics() {
+            return this.metrics;
+        }
+
+        @Override
+        public void accept(Task task) {
+            Engine.this.run(this, task);
+        }
+
+        /**
+         * Run the minigame on the current thread, then publish its mutations.
+         *
+         * @param task the task running the minigame.
+         */
+        private void execute(Task task) {
+            long start = System.nanoTime();
+
+            try {
+                this.minigame.accept(task);
+            } catch (Exception e) {
+                Engine.error(this.minigame, e);
+            } finally {
+                this.metrics.run(System.nanoTime() - start);
+                this.mutations.publish();
+            }
+        }
+
+        /**
+         * Post one of the minigame's events, recording how long it took.
+         *
+         * @param event the event.
+         * @return true if the event was cancelled.
+         */
+        public boolean post(Event event) {
+            long start = System.nanoTime();
+
+            try {
+                return Ember.game().getEventManager().post(event);
+            } finally {
+                this.metrics.event(System.nanoTime() - start);
+            }
+        }
+
+    }
+
+    /**
+     * Creates the worker threads.
+     */
+    private static final class Workers implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "Ember Worker #" + this.count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.system;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size, log-linear histogram of durations in nanoseconds. Values are
+ * grouped into eight buckets per power of two, so percentiles are accurate to
+ * within 12.5%. Recording is lock-free and doesn't allocate.
+ */
+public final class Histogram {
+
+    // Bucket layout.
+    private static final int LINEAR = 16;
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = LINEAR + (64 - 4) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets;
+    private final AtomicLong count;
+    private final AtomicLong max;
+
+    /**
+     * Histogram constructor.
+     */
+    public Histogram() {
+        this.buckets = new AtomicLongArray(BUCKETS);
+        this.count = new AtomicLong();
+        this.max = new AtomicLong();
+    }
+
+    /**
+     * Record a duration.
+     *
+     * @param nanos the duration in nanoseconds.
+     */
+    public void record(long nanos) {
+        if (nanos < 0)
+            nanos = 0;
+
+        this.buckets.incrementAndGet(Histogram.index(nanos));
+        this.count.incrementAndGet();
+
+        long current;
+        while (nanos > (current = this.max.get()) && !this.max.compareAndSet(current, nanos));
+    }
+
+    /**
+     * @return the number of recorded durations.
+     */
+    public long getCount() {
+        return this.count.get();
+    }
+
+    /**
+     * @return the longest recorded duration in nanoseconds.
+     */
+    public long getMax() {
+        return this.max.get();
+    }
+
+    /**
+     * Get a percentile of the recorded durations.
+     *
+     * @param percentile the percentile, between 0 and 100.
+     * @return the duration in nanoseconds, or 0 if nothing was recorded.
+     */
+    public long getPercentile(double percentile) {
+        long count = this.count.get();
+
+        if (count == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(count * (percentile / 100.0)));
+        long seen = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += this.buckets.get(i);
+            if (seen >= rank)
+                return Math.min(Histogram.value(i), this.max.get());
+        }
+        return this.max.get();
+    }
+
+    /**
+     * Get the bucket of a value.
+     *
+     * @param value the value.
+     * @return the bucket's index.
+     */
+    private static int index(long value) {
+        if (value < LINEAR)
+            return (int) value;
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR + (exponent - 4) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Get the upper bound of a bucket.
+     *
+     * @param index the bucket's index.
+     * @return the largest value held by the bucket.
+     */
+    private static long value(int index) {
+        if (index < LINEAR)
+            return index;
+
+        int exponent = (index - LINEAR) / SUB_BUCKETS + 4;
+        long sub = (index - LINEAR) % SUB_BUCKETS;
+        return ((SUB_BUCKETS + sub + 1) << (exponent - SUB_BITS)) - 1;
+    }
+
+}
@@ -0,0 +1,246 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.system;
+
+import com.dracade.ember.Ember;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Loads every serialized object in a directory at once.
+ *
+ * <p>Files are read and parsed in parallel on a fork-join pool. Binding the
+ * parsed data to objects resolves worlds and locations through the
+ * {@link Serializer}'s adapters, so it's deferred to a single pass on the
+ * server thread once every file has been parsed.</p>
+ */
+public final class Loader {
+
+    // Loader singleton
+    private static Loader instance;
+
+    /**
+     * @return Loader singleton instance
+     */
+    public static Loader instance() {
+        return (Loader.instance == null) ? (Loader.instance = new Loader(Serializer.instance())) : instance;
+    }
+
+    // The files picked up by the loader.
+    private static final String GLOB = "*.json";
+
+    private final Serializer serializer;
+    private final ForkJoinPool pool;
+
+    /**
+     * Loader constructor.
+     *
+     * @param serializer the serializer binding the parsed data.
+     */
+    private Loader(Serializer serializer) {
+        this.serializer = serializer;
+        this.pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Load every JSON file in a directory. The returned future completes on
+     * the server thread, so it must not be waited on from the server thread.
+     *
+     * @param directory the directory.
+     * @return a future of the loaded objects and failures.
+     */
+    public CompletableFuture<Result> load(Path directory) {
+        return this.load(directory, Ember.game().getScheduler().createSyncExecutor(Ember.instance()));
+    }
+
+    /**
+     * Load every JSON file in a directory, waiting for the files to be parsed
+     * and binding them on the calling thread. Intended for use from the
+     * server thread during startup.
+     *
+     * @param directory the directory.
+     * @return the loaded objects and failures.
+     */
+    public Result loadNow(Path directory) {
+        return this.bind(CompletableFuture.supplyAsync(() -> this.parse(directory), this.pool).join());
+    }
+
+    /**
+     * Load every JSON file in a directory.
+     *
+     * @param directory the directory.
+     * @param binder the executor the parsed data is bound on.
+     * @return a future of the loaded objects and failures.
+     */
+    private CompletableFuture<Result> load(Path directory, Executor binder) {
+        return CompletableFuture.supplyAsync(() -> this.parse(directory), this.pool).thenApplyAsync(this::bind, binder);
+    }
+
+    /**
+     * Read and parse every file of a directory in parallel.
+     *
+     * @param directory the directory.
+     * @return the parsed files.
+     */
+    private List<Parsed> parse(Path directory) {
+        List<Parsed> files = new ArrayList<Parsed>();
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, GLOB)) {
+            for (Path path : stream) {
+                files.add(new Parsed(path));
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Unable to list the files of " + directory, e);
+        }
+
+        files.parallelStream().forEach(this::parse);
+        return files;
+    }
+
+    /**
+     * Read and parse a file, and resolve its type.
+     *
+     * @param file the file.
+     */
+    private void parse(Parsed file) {
+        try (Reader reader = Files.newBufferedReader(file.path, StandardCharsets.UTF_8)) {
+            file.element = new JsonParser().parse(new JsonReader(reader));
+            file.type = this.serializer.getType(file.element);
+        } catch (Exception e) {
+            file.failure = e;
+        }
+    }
+
+    /**
+     * Bind the parsed files to objects.
+     *
+     * @param files the parsed files.
+     * @return the loaded objects and failures.
+     */
+    private Result bind(List<Parsed> files) {
+        Map<Path, Object> loaded = new LinkedHashMap<Path, Object>();
+        Map<Path, Exception> failures = new LinkedHashMap<Path, Exception>();
+
+        for (Parsed file : files) {
+            if (file.failure == null) {
+                try {
+                    loaded.put(file.path, this.serializer.load(file.element, file.type));
+                } catch (Exception e) {
+                    file.failure = e;
+                }
+            }
+
+            if (file.failure != null) {
+                failures.put(file.path, file.failure);
+            }
+        }
+        return new Result(ImmutableMap.copyOf(loaded), ImmutableMap.copyOf(failures));
+    }
+
+    /**
+     * A file being loaded.
+     */
+    private static final class Parsed {
+
+        private final Path path;
+        private JsonElement element;
+        private Class<?> type;
+        private Exception failure;
+
+        private Parsed(Path path) {
+            this.path = path;
+        }
+
+    }
+
+    /**
+     * The outcome of loading a directory.
+     */
+    public static final class Result {
+
+        private final ImmutableMap<Path, Object> loaded;
+        private final ImmutableMap<Path, Exception> failures;
+
+        /**
+         * Result constructor.
+         *
+         * @param loaded the loaded objects by file.
+         * @param failures the failures by file.
+         */
+        private Result(ImmutableMap<Path, Object> loaded, ImmutableMap<Path, Exception> failures) {
+            this.loaded = loaded;
+            this.failures = failures;
+        }
+
+        /**
+         * @return the loaded objects by file.
+         */
+        public ImmutableMap<Path, Object> getLoaded() {
+            return this.loaded;
+        }
+
+        /**
+         * Get the loaded objects of a type.
+         *
+         * @param type the type.
+         * @param <T> the type.
+         * @return an ImmutableList of the loaded objects of that type.
+         */
+        public <T> ImmutableList<T> getLoaded(Class<T> type) {
+            ImmutableList.Builder<T> builder = ImmutableList.builder();
+            for (Object o : this.loaded.values()) {
+                if (type.isInstance(o)) {
+                    builder.add(type.cast(o));
+                }
+            }
+            return builder.build();
+        }
+
+        /**
+         * @return the failures by file.
+         */
+        public ImmutableMap<Path, Exception> getFailures() {
+            return this.failures;
+        }
+
+    }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.system;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Timing metrics of a registered minigame.
+ */
+public final class Metrics {
+
+    // The minigame's interval in nanoseconds, or 0 if it doesn't repeat.
+    private final long interval;
+
+    private final Histogram runs;
+    private final Histogram events;
+    private final AtomicLong overruns;
+    private final AtomicLong skipped;
+
+    /**
+     * Metrics constructor.
+     *
+     * @param interval the minigame's interval in nanoseconds, or 0 if it
+     *        doesn't repeat.
+     */
+    Metrics(long interval) {
+        this.interval = interval;
+        this.runs = new Histogram();
+        this.events = new Histogram();
+        this.overruns = new AtomicLong();
+        this.skipped = new AtomicLong();
+    }
+
+    /**
+     * Record a run of the minigame.
+     *
+     * @param nanos how long the run took.
+     */
+    void run(long nanos) {
+        this.runs.record(nanos);
+
+        if (this.interval > 0 && nanos > this.interval) {
+            this.overruns.incrementAndGet();
+        }
+    }
+
+    /**
+     * Record the time spent posting one of the minigame's events.
+     *
+     * @param nanos how long posting the event took.
+     */
+    void event(long nanos) {
+        this.events.record(nanos);
+    }
+
+    /**
+     * Record a run that was skipped because the previous one was still going.
+     */
+    void skip() {
+        this.skipped.incrementAndGet();
+    }
+
+    /**
+     * @return the durations of the minigame's runs.
+     */
+    public Histogram getRuns() {
+        return this.runs;
+    }
+
+    /**
+     * @return the time spent posting the minigame's events.
+     */
+    public Histogram getEvents() {
+        return this.events;
+    }
+
+    /**
+     * @return the number of runs that took longer than the minigame's
+     *         interval.
+     */
+    public long getOverruns() {
+        return this.overruns.get();
+    }
+
+    /**
+     * @return the number of asynchronous runs skipped because the previous
+     *         one was still going.
+     */
+    public long getSkipped() {
+        return this.skipped.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.2f/%.2f/%.2fms over %d runs, %d overruns, %d skipped, %.2fms events",
+                this.runs.getPercentile(50) / 1e6, this.runs.getPercentile(99) / 1e6, this.runs.getMax() / 1e6,
+                this.runs.getCount(), this.getOverruns(), this.getSkipped(), this.events.getPercentile(99) / 1e6);
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.system;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A queue of world mutations submitted by a minigame. Mutations are batched
+ * per run of the minigame and applied by Ember on the server thread, once per
+ * tick, in the order they were submitted.
+ *
+ * <p>Asynchronous minigames must use this queue for anything that touches the
+ * world, entities or players.</p>
+ */
+public final class Mutations {
+
+    // The batch being filled by the current run.
+    private List<Runnable> batch;
+
+    // Batches waiting to be applied.
+    private final Queue<List<Runnable>> ready;
+
+    /**
+     * Mutations constructor.
+     */
+    Mutations() {
+        this.batch = new ArrayList<Runnable>();
+        this.ready = new ConcurrentLinkedQueue<List<Runnable>>();
+    }
+
+    /**
+     * Submit a mutation to be applied on the server thread.
+     *
+     * @param mutation the mutation.
+     */
+    public synchronized void submit(Runnable mutation) {
+        this.batch.add(mutation);
+    }
+
+    /**
+     * Make the current batch available to be applied.
+     */
+    synchronized void publish() {
+        if (!this.batch.isEmpty()) {
+            this.ready.add(this.batch);
+            this.batch = new ArrayList<Runnable>();
+        }
+    }
+
+    /**
+     * Apply every published batch. Must be called on the server thread.
+     *
+     * @param owner the minigame owning the queue, used for error reporting.
+     */
+    void flush(Object owner) {
+        List<Runnable> batch;
+        while ((batch = this.ready.poll()) != null) {
+            for (Runnable mutation : batch) {
+                try {
+                    mutation.run();
+                } catch (Exception e) {
+                    Engine.error(owner, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Discard every pending mutation.
+     */
+    synchronized void clear() {
+        this.batch = new ArrayList<Runnable>();
+        this.ready.clear();
+    }
+
+}
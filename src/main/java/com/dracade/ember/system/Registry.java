@@ -0,0 +1,449 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.system;
+
+import com.dracade.ember.core.Arena;
+import com.dracade.ember.core.Minigame;
+import com.dracade.ember.core.region.Region;
+import com.google.common.collect.ImmutableList;
+import org.spongepowered.api.scheduler.Task;
+import org.spongepowered.api.world.World;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ember's arena registry. Indexes the registered arenas by their unique
+ * identifier, by their running minigame, by the world they are on, by the
+ * chunks their region overlaps and by the players that have joined them.
+ *
+ * <p>Writes are expected to come from the server thread through
+ * {@link com.dracade.ember.Ember#register(Arena, Minigame)} and
+ * {@link com.dracade.ember.Ember#unregister(Arena)}, but every lookup is safe
+ * to perform from asynchronous threads.</p>
+ */
+public final class Registry {
+
+    // Registry singleton
+    private static Registry instance;
+
+    /**
+     * @return Registry singleton instance
+     */
+    public static Registry instance() {
+        return (Registry.instance == null) ? (Registry.instance = new Registry()) : instance;
+    }
+
+    // Entries indexed by the arena's unique identifier.
+    private final Map<UUID, Entry> arenas;
+
+    // Entries indexed by their running minigame.
+    private final Map<Minigame, Entry> minigames;
+
+    // Arenas indexed by the unique identifier of their world.
+    private final Map<UUID, ImmutableList<Arena>> worlds;
+
+    // Entries indexed by their world, then by the chunks their region
+    // overlaps.
+    private final Map<UUID, Map<Long, Entry[]>> chunks;
+
+    // Entries indexed by the unique identifier of their players.
+    private final Map<UUID, Entry> players;
+
+    // Snapshots, rebuilt whenever the registry changes.
+    private volatile ImmutableList<Arena> arenaSnapshot = ImmutableList.of();
+    private volatile ImmutableList<Minigame> minigameSnapshot = ImmutableList.of();
+
+    /**
+     * Registry constructor.
+     */
+    private Registry() {
+        this.arenas = new ConcurrentHashMap<UUID, Entry>();
+        this.minigames = new ConcurrentHashMap<Minigame, Entry>();
+        this.worlds = new ConcurrentHashMap<UUID, ImmutableList<Arena>>();
+        this.players = new ConcurrentHashMap<UUID, Entry>();
+        this.chunks = new ConcurrentHashMap<UUID, Map<Long, Entry[]>>();
+    }
+
+    /**
+     * Add an entry to the registry, replacing any entry previously registered
+     * for the same arena.
+     *
+     * @param arena the arena.
+     * @param minigame the minigame being played on the arena.
+     * @param task the task executing the minigame.
+     * @param execution the minigame's execution on the engine.
+     * @return the new entry.
+     */
+    public synchronized Entry put(Arena arena, Minigame minigame, Task task, Engine.Execution execution) {
+        this.remove(arena.getUniqueId());
+
+        Entry entry = new Entry(arena, minigame, task, execution);
+
+        this.arenas.put(arena.getUniqueId(), entry);
+        this.minigames.put(minigame, entry);
+
+        // Index the arena by the world of its spawn, if it has one.
+        if (entry.world != null) {
+            ImmutableList<Arena> current = this.worlds.get(entry.world);
+            this.worlds.put(entry.world, (current == null) ? ImmutableList.of(arena)
+                    : ImmutableList.<Arena>builder().addAll(current).add(arena).build());
+
+            // Index the arena by the chunks of its region, if it has one.
+            if (entry.region != null) {
+                Map<Long, Entry[]> chunks = this.chunks.computeIfAbsent(entry.world, w -> new ConcurrentHashMap<Long, Entry[]>());
+
+                for (long chunk : entry.chunks) {
+                    Entry[] indexed = chunks.get(chunk);
+                    Entry[] updated = (indexed == null) ? new Entry[1] : Arrays.copyOf(indexed, indexed.length + 1);
+                    updated[updated.length - 1] = entry;
+                    chunks.put(chunk, updated);
+                }
+            }
+        }
+
+        this.snapshot();
+        return entry;
+    }
+
+    /**
+     * Remove an arena's entry from the registry.
+     *
+     * @param id the arena's unique identifier.
+     * @return the removed entry wrapped in an Optional.
+     */
+    public synchronized Optional<Entry> remove(UUID id) {
+        Entry entry = this.arenas.remove(id);
+
+        if (entry == null)
+            return Optional.empty();
+
+        this.minigames.remove(entry.minigame);
+
+        // Release the arena's players.
+        for (UUID player : entry.players) {
+            this.players.remove(player, entry);
+        }
+        entry.players.clear();
+
+        // Remove the arena from its world's index.
+        if (entry.world != null) {
+            ImmutableList<Arena> current = this.worlds.get(entry.world);
+            if (current != null) {
+                List<Arena> remaining = new ArrayList<Arena>(current);
+                remaining.remove(entry.arena);
+
+                if (remaining.isEmpty()) {
+                    this.worlds.remove(entry.world);
+                } else {
+                    this.worlds.put(entry.world, ImmutableList.copyOf(remaining));
+                }
+            }
+
+            // Remove the arena from the chunks of its region.
+            Map<Long, Entry[]> chunks = this.chunks.get(entry.world);
+            if (chunks != null && entry.region != null) {
+                for (long chunk : entry.chunks) {
+                    Entry[] indexed = chunks.get(chunk);
+                    if (indexed == null)
+                        continue;
+
+                    List<Entry> others = new ArrayList<Entry>(Arrays.asList(indexed));
+                    others.remove(entry);
+
+                    if (others.isEmpty()) {
+                        chunks.remove(chunk);
+                    } else {
+                        chunks.put(chunk, others.toArray(new Entry[others.size()]));
+                    }
+                }
+            }
+        }
+
+        this.snapshot();
+        return Optional.of(entry);
+    }
+
+    /**
+     * Get an entry by its arena's unique identifier.
+     *
+     * @param id the arena's unique identifier.
+     * @return the entry wrapped in an Optional.
+     */
+    public Optional<Entry> get(UUID id) {
+        Entry entry = this.arenas.get(id);
+        return (entry != null) ? entry.self : Optional.<Entry>empty();
+    }
+
+    /**
+     * Get an entry by its running minigame.
+     *
+     * @param minigame the running minigame.
+     * @return the entry wrapped in an Optional.
+     */
+    public Optional<Entry> get(Minigame minigame) {
+        Entry entry = (minigame != null) ? this.minigames.get(minigame) : null;
+        return (entry != null) ? entry.self : Optional.<Entry>empty();
+    }
+
+    /**
+     * Get the entry of the arena whose region contains a position.
+     *
+     * @param world the unique identifier of the world.
+     * @param x the x coordinate.
+     * @param y the y coordinate.
+     * @param z the z coordinate.
+     * @return the entry wrapped in an Optional.
+     */
+    public Optional<Entry> getAt(UUID world, double x, double y, double z) {
+        Map<Long, Entry[]> chunks = this.chunks.get(world);
+        Entry[] candidates = (chunks != null) ? chunks.get(Region.chunkAt(x, z)) : null;
+
+        if (candidates != null) {
+            for (Entry entry : candidates) {
+                if (entry.region.contains(x, y, z))
+                    return entry.self;
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Get the entry of the arena a player has joined.
+     *
+     * @param player the player's unique identifier.
+     * @return the entry wrapped in an Optional.
+     */
+    public Optional<Entry> getByPlayer(UUID player) {
+        Entry entry = this.players.get(player);
+        return (entry != null) ? entry.self : Optional.<Entry>empty();
+    }
+
+    /**
+     * Add a player to a registered arena. If the player had already joined
+     * another arena, they are removed from it first.
+     *
+     * @param player the player's unique identifier.
+     * @param arena the arena's unique identifier.
+     * @return true if the player joined the arena.
+     */
+    public synchronized boolean join(UUID player, UUID arena) {
+        Entry entry = this.arenas.get(arena);
+
+        if (entry == null)
+            return false;
+
+        this.leave(player);
+
+        this.players.put(player, entry);
+        entry.players.add(player);
+        return true;
+    }
+
+    /**
+     * Remove a player from the arena they have joined.
+     *
+     * @param player the player's unique identifier.
+     * @return the entry the player left wrapped in an Optional.
+     */
+    public synchronized Optional<Entry> leave(UUID player) {
+        Entry entry = this.players.remove(player);
+
+        if (entry == null)
+            return Optional.empty();
+
+        entry.players.remove(player);
+        return entry.self;
+    }
+
+    /**
+     * Get the arenas on a world.
+     *
+     * @param world the world.
+     * @return an ImmutableList of the arenas on that world.
+     */
+    public ImmutableList<Arena> getArenas(World world) {
+        ImmutableList<Arena> arenas = this.worlds.get(world.getUniqueId());
+        return (arenas != null) ? arenas : ImmutableList.<Arena>of();
+    }
+
+    /**
+     * @return an ImmutableList of every registered arena.
+     */
+    public ImmutableList<Arena> getArenas() {
+        return this.arenaSnapshot;
+    }
+
+    /**
+     * @return an ImmutableList of every running minigame.
+     */
+    public ImmutableList<Minigame> getMinigames() {
+        return this.minigameSnapshot;
+    }
+
+    /**
+     * Rebuild the snapshots. Only called while holding the registry's lock,
+     * so readers never see a snapshot older than the last change.
+     */
+    private void snapshot() {
+        ImmutableList.Builder<Arena> arenas = ImmutableList.builder();
+        ImmutableList.Builder<Minigame> minigames = ImmutableList.builder();
+
+        for (Entry e : this.arenas.values()) {
+            arenas.add(e.arena);
+            minigames.add(e.minigame);
+        }
+
+        this.arenaSnapshot = arenas.build();
+        this.minigameSnapshot = minigames.build();
+    }
+
+    /**
+     * A registered arena along with its minigame and task.
+     */
+    public static final class Entry {
+
+        private final Arena arena;
+        private final Minigame minigame;
+        private final Task task;
+        private final Engine.Execution execution;
+
+        // The world the arena was indexed under, or null.
+        private final UUID world;
+
+        // The region the arena was indexed with, and the chunks it overlaps.
+        private final Region region;
+        private final Set<Long> chunks;
+
+        // The players that have joined the arena.
+        private final Set<UUID> players;
+
+        // The original state of the blocks changed in the arena.
+        private final BlockJournal journal;
+
+        // Pre-built Optionals so that lookups don't allocate.
+        private final Optional<Entry> self;
+        private final Optional<Arena> arenaOptional;
+        private final Optional<Minigame> minigameOptional;
+
+        /**
+         * Entry constructor.
+         *
+         * @param arena the arena.
+         * @param minigame the minigame being played on the arena.
+         * @param task the task executing the minigame.
+         * @param execution the minigame's execution on the engine.
+         */
+        private Entry(Arena arena, Minigame minigame, Task task, Engine.Execution execution) {
+            this.arena = arena;
+            this.minigame = minigame;
+            this.task = task;
+            this.execution = execution;
+
+            this.world = (arena.getWorld() != null) ? arena.getWorld().getUniqueId() : null;
+
+            this.region = arena.getRegion();
+            this.chunks = new HashSet<Long>();
+            if (this.region != null) {
+                this.region.chunks(this.chunks::add);
+            }
+
+            this.players = ConcurrentHashMap.newKeySet();
+            this.journal = new BlockJournal();
+
+            this.self = Optional.of(this);
+            this.arenaOptional = Optional.of(arena);
+            this.minigameOptional = Optional.of(minigame);
+        }
+
+        /**
+         * @return the arena.
+         */
+        public Arena getArena() {
+            return this.arena;
+        }
+
+        /**
+         * @return the arena wrapped in an Optional.
+         */
+        public Optional<Arena> arena() {
+            return this.arenaOptional;
+        }
+
+        /**
+         * @return the minigame being played on the arena.
+         */
+        public Minigame getMinigame() {
+            return this.minigame;
+        }
+
+        /**
+         * @return the minigame wrapped in an Optional.
+         */
+        public Optional<Minigame> minigame() {
+            return this.minigameOptional;
+        }
+
+        /**
+         * @return the task executing the minigame. For minigames running on
+         *         the shared {@link Engine}, this is the engine's task.
+         */
+        public Task getTask() {
+            return this.task;
+        }
+
+        /**
+         * @return the minigame's execution on the engine.
+         */
+        public Engine.Execution getExecution() {
+            return this.execution;
+        }
+
+        /**
+         * @return the unique identifiers of the players that have joined the
+         *         arena.
+         */
+        public Set<UUID> getPlayers() {
+            return Collections.unmodifiableSet(this.players);
+        }
+
+        /**
+         * @return the journal of the blocks changed in the arena. Must only
+         *         be used from the server thread.
+         */
+        public BlockJournal getJournal() {
+            return this.journal;
+        }
+
+    }
+
+}
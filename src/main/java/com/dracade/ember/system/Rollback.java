@@ -0,0 +1,244 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.system;
+
+import com.dracade.ember.Ember;
+import com.dracade.ember.core.WorldReference;
+import com.dracade.ember.core.events.minigame.MinigameStoppedEvent;
+import com.flowpowered.math.vector.Vector3i;
+import org.spongepowered.api.block.BlockSnapshot;
+import org.spongepowered.api.data.Transaction;
+import org.spongepowered.api.event.Listener;
+import org.spongepowered.api.event.Order;
+import org.spongepowered.api.event.block.ChangeBlockEvent;
+import org.spongepowered.api.scheduler.Task;
+import org.spongepowered.api.world.World;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Ember's arena rollback. Records the original state of the blocks changed
+ * within running arenas in their {@link BlockJournal}, and once a minigame
+ * stops, restores them over the following ticks without restoring the world
+ * from disk.
+ *
+ * <p>At most {@link #getBudget()} blocks are restored per tick, shared by
+ * every arena being rolled back, oldest first.</p>
+ */
+public final class Rollback implements Consumer<Task> {
+
+    // Rollback singleton
+    private static Rollback instance;
+
+    /**
+     * @return Rollback singleton instance
+     */
+    public static Rollback instance() {
+        return (Rollback.instance == null) ? (Rollback.instance = new Rollback()) : instance;
+    }
+
+    // The default number of blocks restored per tick.
+    private static final int DEFAULT_BUDGET = 2048;
+
+    // The journals being rolled back.
+    private final Queue<Pending> pending;
+
+    // The number of blocks restored per tick.
+    private volatile int budget;
+
+    // The plugin owning the rollback task.
+    private Object plugin;
+
+    // The task rolling back the journals, while there are any.
+    private Task task;
+
+    /**
+     * Rollback constructor.
+     */
+    private Rollback() {
+        this.pending = new ArrayDeque<Pending>();
+        this.budget = DEFAULT_BUDGET;
+    }
+
+    /**
+     * Start rolling back arenas.
+     *
+     * @param plugin the plugin owning the rollback task.
+     */
+    public void start(Object plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * @return the number of blocks restored per tick.
+     */
+    public int getBudget() {
+        return this.budget;
+    }
+
+    /**
+     * Set the number of blocks restored per tick.
+     *
+     * @param budget the number of blocks, at least 1.
+     */
+    public void setBudget(int budget) {
+        if (budget < 1)
+            throw new IllegalArgumentException("The budget must be at least 1");
+
+        this.budget = budget;
+    }
+
+    /**
+     * @return the number of blocks left to restore.
+     */
+    public int getPending() {
+        int blocks = 0;
+        for (Pending pending : this.pending) {
+            blocks += pending.journal.size();
+        }
+        return blocks;
+    }
+
+    /**
+     * This method is called after blocks are changed.
+     */
+    @Listener(order = Order.POST)
+    public void onChangeBlock(ChangeBlockEvent event) {
+        UUID world = event.getTargetWorld().getUniqueId();
+
+        for (Transaction<BlockSnapshot> transaction : event.getTransactions()) {
+            if (!transaction.isValid())
+                continue;
+
+            BlockSnapshot original = transaction.getOriginal();
+            Vector3i position = original.getPosition();
+            Optional<Registry.Entry> entry = Ember.registry().getAt(world, position.getX(), position.getY(), position.getZ());
+
+            if (entry.isPresent() && entry.get().getMinigame().rollback()) {
+                entry.get().getJournal().record(position.getX(), position.getY(), position.getZ(), original.getState());
+            }
+        }
+    }
+
+    /**
+     * This method is called when a minigame has stopped, while its arena is
+     * still registered.
+     */
+    @Listener
+    public void onStopped(MinigameStoppedEvent event) {
+        Optional<Registry.Entry> entry = Ember.registry().get(event.getMinigame());
+        if (!entry.isPresent() || entry.get().getJournal().isEmpty() || entry.get().getArena().getWorld() == null)
+            return;
+
+        this.pending.add(new Pending(entry.get().getArena().getUniqueId(), entry.get().getArena().getWorld(), entry.get().getJournal()));
+
+        if (this.task == null) {
+            this.task = Ember.game().getScheduler().createTaskBuilder().name("Ember Rollback").intervalTicks(1).execute(this).submit(this.plugin);
+        }
+    }
+
+    /**
+     * Restore every block left in an arena's journals right away, ignoring
+     * the budget, so that a new minigame can start on it.
+     *
+     * @param arena the arena's unique id.
+     * @return the number of blocks restored.
+     */
+    public int finish(UUID arena) {
+        int blocks = 0;
+
+        for (Iterator<Pending> iterator = this.pending.iterator(); iterator.hasNext();) {
+            Pending pending = iterator.next();
+
+            if (pending.arena.equals(arena)) {
+                blocks += this.restore(pending, Integer.MAX_VALUE);
+                iterator.remove();
+            }
+        }
+        return blocks;
+    }
+
+    /**
+     * Restore the next blocks, up to the budget.
+     */
+    @Override
+    public void accept(Task task) {
+        int budget = this.budget;
+
+        while (budget > 0 && !this.pending.isEmpty()) {
+            Pending next = this.pending.peek();
+            budget -= this.restore(next, budget);
+
+            if (next.journal.isEmpty())
+                this.pending.poll();
+        }
+
+        if (this.pending.isEmpty()) {
+            task.cancel();
+            this.task = null;
+        }
+    }
+
+    /**
+     * Restore the blocks of a journal, up to a budget.
+     *
+     * @param pending the journal being rolled back.
+     * @param budget the maximum number of blocks to restore.
+     * @return the number of blocks restored.
+     */
+    private int restore(Pending pending, int budget) {
+        Optional<World> world = pending.world.get();
+
+        if (!world.isPresent()) {
+            // The world was unloaded, so the blocks can't be restored.
+            Ember.instance().getLogger().warn("[Ember]: Unable to roll back " + pending.journal.size() + " blocks, the world is unloaded.");
+            pending.journal.clear();
+            return 0;
+        }
+        return pending.journal.rollback(world.get(), budget);
+    }
+
+    /**
+     * A journal being rolled back.
+     */
+    private static final class Pending {
+
+        private final UUID arena;
+        private final WorldReference world;
+        private final BlockJournal journal;
+
+        private Pending(UUID arena, WorldReference world, BlockJournal journal) {
+            this.arena = arena;
+            this.world = world;
+            this.journal = journal;
+        }
+
+    }
+
+}
@@ -1,20 +1,31 @@
 package com.dracade.ember.system;
 
+import com.dracade.ember.core.WorldReference;
 import com.dracade.ember.core.adapters.ClassAdapter;
 import com.dracade.ember.core.adapters.LocationAdapter;
+import com.dracade.ember.core.adapters.RegionAdapter;
 import com.dracade.ember.core.adapters.WorldAdapter;
+import com.dracade.ember.core.adapters.WorldReferenceAdapter;
+import com.dracade.ember.core.region.Region;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
-import com.google.gson.JsonPrimitive;
 import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
 import org.spongepowered.api.world.Location;
 import org.spongepowered.api.world.World;
 
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.WeakHashMap;
 
 /**
  * TODO:
@@ -43,15 +54,24 @@ public final class Serializer {
     // A set to store all of our type adapters.
     private HashMap<Class<?>, Class<? extends TypeAdapter>> adapters;
 
+    // The Gson instance built from the default GsonBuilder.
+    private volatile Gson gson;
+
+    // The Gson instances built from custom GsonBuilders.
+    private final Map<GsonBuilder, Gson> builders;
+
     /**
      * Serializer constructor.
      */
     protected Serializer() {
         this.adapters = new HashMap<Class<?>, Class<? extends TypeAdapter>>();
+        this.builders = Collections.synchronizedMap(new WeakHashMap<GsonBuilder, Gson>());
 
         this.register(Class.class, ClassAdapter.class);
         this.register(World.class, WorldAdapter.class);
+        this.register(WorldReference.class, WorldReferenceAdapter.class);
         this.register(Location.class, LocationAdapter.class);
+        this.register(Region.class, RegionAdapter.class);
     }
 
     /**
@@ -62,9 +82,10 @@ public final class Serializer {
      * @param <T>
      * @return true if the adapters was registered successfully.
      */
-    public <T extends TypeAdapter> boolean register(Class<?> object, Class<T> adapter) {
+    public synchronized <T extends TypeAdapter> boolean register(Class<?> object, Class<T> adapter) {
         if (!this.adapters.containsKey(object)) {
             this.adapters.put(object, adapter);
+            this.invalidate();
         }
         return this.adapters.containsKey(object);
     }
@@ -75,41 +96,67 @@ public final class Serializer {
      * @param <T>
      * @return true if the adapters was unregistered successfully.
      */
-    public <T extends TypeAdapter> boolean unregister(Class<?> object) {
-        if (!this.adapters.containsKey(object)) {
+    public synchronized <T extends TypeAdapter> boolean unregister(Class<?> object) {
+        if (this.adapters.containsKey(object)) {
             this.adapters.remove(object);
+            this.invalidate();
         }
-        return this.adapters.containsKey(object);
+        return !this.adapters.containsKey(object);
     }
 
     /**
-     * Get the GsonBuilder.
+     * Discard the cached Gson instances.
+     */
+    private void invalidate() {
+        this.gson = null;
+        this.builders.clear();
+    }
+
+    /**
+     * Get the Gson instance. The instance is cached until an adapter is
+     * registered or unregistered.
      *
-     * @return GsonBuilder instance.
+     * @return Gson instance.
      * @throws IllegalAccessException if a registered adapter is not accessible.
      * @throws InstantiationException if a registered adapter cannot be
      *         instantiated.
      */
     public Gson gson() throws InstantiationException, IllegalAccessException {
-        return this.gson(null);
+        Gson gson = this.gson;
+        return (gson != null) ? gson : this.gson(null);
     }
 
     /**
-     * Get the GsonBuilder.
+     * Get a Gson instance built from a GsonBuilder, with every registered
+     * adapter added to it. A Gson instance is cached for each builder until an
+     * adapter is registered or unregistered, so changes made to the builder
+     * after its first use are not picked up.
      *
      * @param builder your custom GsonBuilder instance.
-     * @return GsonBuilder instance.
+     * @return Gson instance.
      * @throws IllegalAccessException if a registered adapter is not accessible.
      * @throws InstantiationException if a registered adapter cannot be
      *         instantiated.
      */
-    public Gson gson(GsonBuilder builder) throws IllegalAccessException, InstantiationException {
+    public synchronized Gson gson(GsonBuilder builder) throws IllegalAccessException, InstantiationException {
+        Gson gson = (builder != null) ? this.builders.get(builder) : this.gson;
+
+        if (gson != null)
+            return gson;
+
         GsonBuilder b = (builder != null) ? builder : new GsonBuilder();
 
         for (Map.Entry<Class<?>, Class<? extends TypeAdapter>> entry : this.adapters.entrySet()) {
             b.registerTypeHierarchyAdapter(entry.getKey(), entry.getValue().newInstance());
         }
-        return b.create();
+        gson = b.create();
+
+        if (builder != null) {
+            this.builders.put(builder, gson);
+        } else {
+            this.gson = gson;
+        }
+        return gson;
     }
 
     /**
@@ -120,24 +167,33 @@ public final class Serializer {
      * @throws ClassNotFoundException if the class wasn't found.
      */
     public Class<?> getType(String json) throws ClassNotFoundException {
-        JsonParser parser = new JsonParser();
-        JsonElement element = parser.parse(json);
+        return this.getType(new JsonParser().parse(json));
+    }
+
+    /**
+     * Get the object type from parsed JSON. The type is read from the object's
+     * "_type" property, or its "type" property if it doesn't have one.
+     *
+     * @param element the parsed json data.
+     * @return the relevant class.
+     * @throws ClassNotFoundException if the class wasn't found.
+     */
+    public Class<?> getType(JsonElement element) throws ClassNotFoundException {
         if (element.isJsonObject()) {
             JsonObject obj = element.getAsJsonObject();
-            if (obj.has("type")) {
-                element = obj.get("type");
-                if (element.isJsonObject()) {
-                    obj = element.getAsJsonObject();
-                    if (obj.has("class")) {
-                        JsonPrimitive value = obj.get("class").getAsJsonPrimitive();
-                        if (value.isString()) {
-                            return Class.forName(value.getAsString());
-                        }
+            JsonElement type = obj.has("_type") ? obj.get("_type") : obj.get("type");
+
+            if (type != null && type.isJsonObject()) {
+                obj = type.getAsJsonObject();
+                if (obj.has("class")) {
+                    JsonElement value = obj.get("class");
+                    if (value.isJsonPrimitive() && value.getAsJsonPrimitive().isString()) {
+                        return ClassResolver.instance().resolve(value.getAsString());
                     }
                 }
             }
         }
-        throw new ClassNotFoundException("The JSON data provided doesn't contain a valid \"type\" object.");
+        throw new ClassNotFoundException("The JSON data provided doesn't contain a valid \"_type\" or \"type\" object.");
     }
 
     /**
@@ -151,7 +207,54 @@ public final class Serializer {
      *         instantiated.
      */
     public Object getAndLoad(String json) throws ClassNotFoundException, IllegalAccessException, InstantiationException {
-        return this.getType(json).cast(this.gson().fromJson(json, this.getType(json)));
+        return this.getAndLoad(new StringReader(json));
+    }
+
+    /**
+     * Attempts to get and load the correct object from a stream of UTF-8
+     * encoded JSON data.
+     *
+     * @param stream the json data.
+     * @return The object.
+     * @throws ClassNotFoundException if the object type wasn't found.
+     * @throws IllegalAccessException if a registered adapter is not accessible.
+     * @throws InstantiationException if a registered adapter cannot be
+     *         instantiated.
+     */
+    public Object getAndLoad(InputStream stream) throws ClassNotFoundException, IllegalAccessException, InstantiationException {
+        return this.getAndLoad(new InputStreamReader(stream, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Attempts to get and load the correct object from a reader of JSON data.
+     * The data is only parsed once: the type is read from the parsed tree,
+     * which is then handed to the type's adapter.
+     *
+     * @param reader the json data.
+     * @return The object.
+     * @throws ClassNotFoundException if the object type wasn't found.
+     * @throws IllegalAccessException if a registered adapter is not accessible.
+     * @throws InstantiationException if a registered adapter cannot be
+     *         instantiated.
+     */
+    public Object getAndLoad(Reader reader) throws ClassNotFoundException, IllegalAccessException, InstantiationException {
+        JsonElement element = new JsonParser().parse(new JsonReader(reader));
+        return this.load(element, this.getType(element));
+    }
+
+    /**
+     * Load an object of a known type from parsed JSON.
+     *
+     * @param element the parsed json data.
+     * @param type the object's type.
+     * @param <T> the object's type.
+     * @return The object.
+     * @throws IllegalAccessException if a registered adapter is not accessible.
+     * @throws InstantiationException if a registered adapter cannot be
+     *         instantiated.
+     */
+    public <T> T load(JsonElement element, Class<T> type) throws IllegalAccessException, InstantiationException {
+        return type.cast(this.gson().getAdapter(type).fromJsonTree(element));
     }
 
 }
@@ -0,0 +1,242 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.system;
+
+import java.util.function.Consumer;
+
+/**
+ * A hierarchical timing wheel measured in ticks. Each level has 64 slots,
+ * and every level spans 64 times the range of the level below it. Timers are
+ * placed in the level matching how far away they are, and cascade down a
+ * level each time the level below wraps around, so scheduling, cancelling
+ * and advancing are all constant time.
+ *
+ * <p>The wheel isn't thread-safe.</p>
+ *
+ * @param <T> the type of value held by the timers.
+ */
+final class TimingWheel<T> {
+
+    // Wheel dimensions.
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    // The furthest a timer can be scheduled ahead.
+    private static final long RANGE = (1L << (BITS * LEVELS)) - 1;
+
+    // Sentinel heads for every slot of every level.
+    private final Timer<T>[][] wheel;
+
+    // Sentinel head of the timers being fired.
+    private final Timer<T> due;
+
+    // The tick that is processed next.
+    private long now;
+
+    /**
+     * TimingWheel constructor.
+     */
+    @SuppressWarnings("unchecked")
+    TimingWheel() {
+        this.wheel = (Timer<T>[][]) new Timer<?>[LEVELS][SLOTS];
+        this.due = new Timer<T>(null);
+        this.due.next = this.due.previous = this.due;
+
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                Timer<T> head = new Timer<T>(null);
+                head.next = head.previous = head;
+                this.wheel[level][slot] = head;
+            }
+        }
+    }
+
+    /**
+     * @return the tick that is processed next.
+     */
+    long now() {
+        return this.now;
+    }
+
+    /**
+     * Schedule a value to fire after a number of ticks.
+     *
+     * @param value the value.
+     * @param ticks the delay in ticks, a delay of 0 fires on the next tick.
+     * @return the scheduled timer.
+     */
+    Timer<T> schedule(T value, long ticks) {
+        Timer<T> timer = new Timer<T>(value);
+        this.schedule(timer, ticks);
+        return timer;
+    }
+
+    /**
+     * Schedule a timer to fire after a number of ticks. The timer must not
+     * currently be scheduled.
+     *
+     * @param timer the timer.
+     * @param ticks the delay in ticks, a delay of 0 fires on the next tick.
+     */
+    void schedule(Timer<T> timer, long ticks) {
+        timer.deadline = this.now + Math.min(Math.max(ticks, 0), RANGE);
+        this.insert(timer);
+    }
+
+    /**
+     * Cancel a timer.
+     *
+     * @param timer the timer.
+     * @return true if the timer was scheduled.
+     */
+    boolean cancel(Timer<T> timer) {
+        if (timer.next == null)
+            return false;
+
+        timer.unlink();
+        return true;
+    }
+
+    /**
+     * Process the current tick, firing every timer that is due.
+     *
+     * @param consumer the consumer of the timers that fire.
+     */
+    void advance(Consumer<Timer<T>> consumer) {
+        int index = (int) (this.now & MASK);
+
+        // Cascade the higher levels whenever the level below wraps.
+        for (int level = 1; level < LEVELS && index == 0; level++) {
+            index = (int) ((this.now >>> (BITS * level)) & MASK);
+            this.cascade(this.wheel[level][index]);
+        }
+
+        Timer<T> head = this.wheel[0][(int) (this.now & MASK)];
+        this.now++;
+
+        // Detach the due timers from their slot before firing them, since a
+        // timer rescheduled a full rotation ahead lands back in the same slot.
+        if (head.next != head) {
+            this.due.next = head.next;
+            this.due.previous = head.previous;
+            this.due.next.previous = this.due;
+            this.due.previous.next = this.due;
+            head.next = head.previous = head;
+        }
+
+        // Fire the due timers. They are unlinked first so that the consumer
+        // is free to reschedule them.
+        while (this.due.next != this.due) {
+            Timer<T> timer = this.due.next;
+            timer.unlink();
+            consumer.accept(timer);
+        }
+    }
+
+    /**
+     * Re-insert every timer of a slot, moving them to lower levels.
+     *
+     * @param head the slot's sentinel.
+     */
+    private void cascade(Timer<T> head) {
+        while (head.next != head) {
+            Timer<T> timer = head.next;
+            timer.unlink();
+            this.insert(timer);
+        }
+    }
+
+    /**
+     * Insert a timer into the slot matching its deadline.
+     *
+     * @param timer the timer.
+     */
+    private void insert(Timer<T> timer) {
+        long distance = timer.deadline - this.now;
+        int level = 0;
+
+        while (level < LEVELS - 1 && distance >= (1L << (BITS * (level + 1)))) {
+            level++;
+        }
+
+        // Overdue timers fire on the tick processed next.
+        long tick = (distance < 0) ? this.now : timer.deadline;
+        timer.link(this.wheel[level][(int) ((tick >>> (BITS * level)) & MASK)]);
+    }
+
+    /**
+     * A timer held by the wheel.
+     *
+     * @param <T> the type of value held by the timer.
+     */
+    static final class Timer<T> {
+
+        private final T value;
+        private long deadline;
+
+        // Links within the slot.
+        private Timer<T> next;
+        private Timer<T> previous;
+
+        /**
+         * Timer constructor.
+         *
+         * @param value the value.
+         */
+        private Timer(T value) {
+            this.value = value;
+        }
+
+        /**
+         * @return the value held by the timer.
+         */
+        T getValue() {
+            return this.value;
+        }
+
+        /**
+         * @return the tick the timer fires on.
+         */
+        long getDeadline() {
+            return this.deadline;
+        }
+
+        private void link(Timer<T> head) {
+            this.previous = head.previous;
+            this.next = head;
+            head.previous.next = this;
+            head.previous = this;
+        }
+
+        private void unlink() {
+            this.previous.next = this.next;
+            this.next.previous = this.previous;
+            this.next = this.previous = null;
+        }
+
+    }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.system;
+
+import com.dracade.ember.core.WorldReference;
+import org.spongepowered.api.event.Listener;
+import org.spongepowered.api.event.world.LoadWorldEvent;
+import org.spongepowered.api.event.world.UnloadWorldEvent;
+import org.spongepowered.api.world.World;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Ember's world resolver. Hands out a single {@link WorldReference} per world
+ * and keeps them up to date as worlds are loaded and unloaded, so that
+ * deserializing many objects on the same world only looks it up once.
+ */
+public final class Worlds {
+
+    // Worlds singleton
+    private static Worlds instance;
+
+    /**
+     * @return Worlds singleton instance
+     */
+    public static Worlds instance() {
+        return (Worlds.instance == null) ? (Worlds.instance = new Worlds()) : instance;
+    }
+
+    /**
+     * Worlds constructor.
+     */
+    private Worlds() {
+    }
+
+    /**
+     * Get the reference to a world.
+     *
+     * @param id the world's unique identifier.
+     * @return the reference, whether or not the world is loaded.
+     */
+    public WorldReference reference(UUID id) {
+        return WorldReference.of(id);
+    }
+
+    /**
+     * Get the reference to a loaded world.
+     *
+     * @param world the world.
+     * @return the reference.
+     */
+    public WorldReference reference(World world) {
+        WorldReference reference = this.reference(world.getUniqueId());
+        reference.loaded(world);
+        return reference;
+    }
+
+    /**
+     * Resolve a world by its unique identifier.
+     *
+     * @param id the world's unique identifier.
+     * @return the world wrapped in an Optional, empty if it isn't loaded.
+     */
+    public Optional<World> resolve(UUID id) {
+        return this.reference(id).get();
+    }
+
+    /**
+     * This method is called when a world is loaded.
+     */
+    @Listener
+    public void onLoad(LoadWorldEvent event) {
+        Optional<WorldReference> reference = WorldReference.find(event.getTargetWorld().getUniqueId());
+
+        if (reference.isPresent()) {
+            reference.get().loaded(event.getTargetWorld());
+        }
+    }
+
+    /**
+     * This method is called when a world is unloaded.
+     */
+    @Listener
+    public void onUnload(UnloadWorldEvent event) {
+        Optional<WorldReference> reference = WorldReference.find(event.getTargetWorld().getUniqueId());
+
+        if (reference.isPresent()) {
+            reference.get().unloaded();
+        }
+    }
+
+}
@@ -0,0 +1,368 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.system.backup;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+/**
+ * Reads Ember archives. Only the footer and index are read when the archive
+ * is opened, and entries are then read directly from their offset, verifying
+ * the CRC-32 of every block.
+ *
+ * <p>Readers may be used from several threads at once.</p>
+ *
+ * @see ArchiveWriter
+ */
+public final class ArchiveReader implements Closeable {
+
+    /**
+     * The file extension of Ember archives.
+     */
+    public static final String EXTENSION = ".emb";
+
+    private final FileChannel channel;
+    private final Map<String, Entry> entries;
+
+    /**
+     * ArchiveReader constructor.
+     *
+     * @param archive the archive.
+     * @throws IOException if the archive couldn't be opened, or is invalid.
+     */
+    public ArchiveReader(Path archive) throws IOException {
+        this.channel = FileChannel.open(archive, StandardOpenOption.READ);
+
+        try {
+            long size = this.channel.size();
+            if (size < ArchiveWriter.HEADER + ArchiveWriter.FOOTER)
+                throw new IOException("Truncated archive " + archive);
+
+            ByteBuffer header = this.read(0, ArchiveWriter.HEADER);
+            if (header.getInt() != ArchiveWriter.MAGIC || header.getShort() != ArchiveWriter.VERSION)
+                throw new IOException("Not an Ember archive " + archive);
+
+            ByteBuffer footer = this.read(size - ArchiveWriter.FOOTER, ArchiveWriter.FOOTER);
+            long index = footer.getLong();
+            int count = footer.getInt();
+            if (footer.getInt() != ArchiveWriter.INDEX_MAGIC || index < ArchiveWriter.HEADER || index > size - ArchiveWriter.FOOTER)
+                throw new IOException("Incomplete archive " + archive);
+
+            ByteBuffer buffer = this.read(index, (int) (size - ArchiveWriter.FOOTER - index));
+            this.entries = new LinkedHashMap<String, Entry>(count * 2);
+
+            for (int i = 0; i < count; i++) {
+                byte[] name = new byte[buffer.getShort() & 0xFFFF];
+                buffer.get(name);
+
+                Entry entry = new Entry(new String(name, StandardCharsets.UTF_8), buffer.getLong(), buffer.getLong(),
+                        buffer.getLong(), buffer.getLong(), buffer.getInt(), Compression.byId(buffer.get()));
+
+                if (entry.offset < ArchiveWriter.HEADER || entry.offset + entry.length > index)
+                    throw new IOException("Invalid entry " + entry.name);
+
+                this.entries.put(entry.name, entry);
+            }
+        } catch (IOException | RuntimeException e) {
+            this.channel.close();
+            throw (e instanceof IOException) ? (IOException) e : new IOException("Invalid archive " + archive, e);
+        }
+    }
+
+    /**
+     * @return the entries, in the order they were written.
+     */
+    public Collection<Entry> getEntries() {
+        return Collections.unmodifiableCollection(this.entries.values());
+    }
+
+    /**
+     * Get an entry.
+     *
+     * @param name the entry's name.
+     * @return the entry wrapped in an Optional, empty if there's no such
+     *         entry.
+     */
+    public Optional<Entry> getEntry(String name) {
+        return Optional.ofNullable(this.entries.get(name));
+    }
+
+    /**
+     * Open an entry.
+     *
+     * @param entry the entry.
+     * @return a stream of the entry's data.
+     */
+    public InputStream open(Entry entry) {
+        return new EntryInputStream(entry);
+    }
+
+    /**
+     * Extract an entry to a file, which must not exist yet.
+     *
+     * @param entry the entry.
+     * @param file the file.
+     * @throws IOException if the entry couldn't be extracted, or is corrupted.
+     */
+    public void extract(Entry entry, Path file) throws IOException {
+        Block block = new Block();
+        long size = 0;
+
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long position = entry.offset;
+
+            for (int i = 0; i < entry.blocks; i++) {
+                position = this.block(entry, position, block);
+                size += block.size;
+
+                ByteBuffer data = ByteBuffer.wrap(block.data, 0, block.size);
+                while (data.hasRemaining()) {
+                    out.write(data);
+                }
+            }
+        }
+
+        if (size != entry.size)
+            throw new IOException("Corrupted entry " + entry.name);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(entry.modified));
+    }
+
+    /**
+     * Check that an entry is readable and intact, without writing it
+     * anywhere.
+     *
+     * @param entry the entry.
+     * @throws IOException if the entry is corrupted.
+     */
+    public void verify(Entry entry) throws IOException {
+        Block block = new Block();
+        long position = entry.offset;
+        long size = 0;
+
+        for (int i = 0; i < entry.blocks; i++) {
+            position = this.block(entry, position, block);
+            size += block.size;
+        }
+
+        if (size != entry.size)
+            throw new IOException("Corrupted entry " + entry.name);
+    }
+
+    /**
+     * Read an entry's blocks as they're stored, to copy them to another
+     * archive.
+     *
+     * @param entry the entry.
+     * @return the stored blocks.
+     * @throws IOException if the entry couldn't be read.
+     */
+    byte[] raw(Entry entry) throws IOException {
+        if (entry.length > Integer.MAX_VALUE)
+            throw new IOException("Entry too large to copy " + entry.name);
+
+        return this.read(entry.offset, (int) entry.length).array();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    /**
+     * Read and decompress a block, verifying its checksum.
+     *
+     * @param entry the block's entry.
+     * @param position the block's position.
+     * @param block the block to read into.
+     * @return the position of the next block.
+     * @throws IOException if the block couldn't be read, or is corrupted.
+     */
+    private long block(Entry entry, long position, Block block) throws IOException {
+        ByteBuffer header = this.read(position, ArchiveWriter.BLOCK_HEADER);
+        int size = header.getInt();
+        int length = header.getInt();
+        int crc = header.getInt();
+
+        if (size < 0 || size > ArchiveWriter.BLOCK || length < 0 || length > size
+                || position + ArchiveWriter.BLOCK_HEADER + length > entry.offset + entry.length)
+            throw new IOException("Corrupted entry " + entry.name);
+
+        ByteBuffer compressed = this.read(position + ArchiveWriter.BLOCK_HEADER, length);
+        if (length == size) {
+            System.arraycopy(compressed.array(), 0, block.data, 0, size);
+        } else {
+            entry.compression.decompress(compressed.array(), length, block.data, size);
+        }
+
+        block.checksum.reset();
+        block.checksum.update(block.data, 0, size);
+        if ((int) block.checksum.getValue() != crc)
+            throw new IOException("Corrupted entry " + entry.name);
+
+        block.size = size;
+        return position + ArchiveWriter.BLOCK_HEADER + length;
+    }
+
+    private ByteBuffer read(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (this.channel.read(buffer, position + buffer.position()) < 0)
+                throw new IOException("Unexpected end of archive");
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * A decompressed block.
+     */
+    private static final class Block {
+
+        private final byte[] data = new byte[ArchiveWriter.BLOCK];
+        private final CRC32 checksum = new CRC32();
+        private int size;
+
+    }
+
+    /**
+     * Streams an entry's blocks.
+     */
+    private final class EntryInputStream extends InputStream {
+
+        private final Entry entry;
+        private final Block block;
+        private long position;
+        private int blocks;
+        private int offset;
+
+        private EntryInputStream(Entry entry) {
+            this.entry = entry;
+            this.block = new Block();
+            this.position = entry.offset;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return (this.read(b, 0, 1) < 0) ? -1 : (b[0] & 0xFF);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            while (this.offset == this.block.size) {
+                if (this.blocks == this.entry.blocks)
+                    return -1;
+
+                this.position = ArchiveReader.this.block(this.entry, this.position, this.block);
+                this.blocks++;
+                this.offset = 0;
+            }
+
+            int n = Math.min(len, this.block.size - this.offset);
+            System.arraycopy(this.block.data, this.offset, b, off, n);
+            this.offset += n;
+            return n;
+        }
+
+    }
+
+    /**
+     * An entry of an archive.
+     */
+    public static final class Entry {
+
+        private final String name;
+        private final long modified;
+        private final long size;
+        private final long offset;
+        private final long length;
+        private final int blocks;
+        private final Compression compression;
+
+        private Entry(String name, long modified, long size, long offset, long length, int blocks, Compression compression) {
+            this.name = name;
+            this.modified = modified;
+            this.size = size;
+            this.offset = offset;
+            this.length = length;
+            this.blocks = blocks;
+            this.compression = compression;
+        }
+
+        /**
+         * @return the entry's name, using '/' as separator.
+         */
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * @return the entry's modification time in milliseconds.
+         */
+        public long getModified() {
+            return this.modified;
+        }
+
+        /**
+         * @return the entry's uncompressed size.
+         */
+        public long getSize() {
+            return this.size;
+        }
+
+        /**
+         * @return the size of the entry within the archive.
+         */
+        public long getCompressedSize() {
+            return this.length;
+        }
+
+        /**
+         * @return the codec of the entry's blocks.
+         */
+        public Compression getCompression() {
+            return this.compression;
+        }
+
+        int getBlocks() {
+            return this.blocks;
+        }
+
+    }
+
+}
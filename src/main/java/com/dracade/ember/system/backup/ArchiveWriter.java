@@ -0,0 +1,205 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.system.backup;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes Ember archives. An archive starts with a header, followed by the
+ * data of every entry, then by an index of the entries and a fixed size
+ * footer locating the index, so that any entry can be read without scanning
+ * the archive.
+ *
+ * <p>The data of an entry is a list of blocks of at most {@link #BLOCK}
+ * bytes, each compressed independently and preceded by its length, its
+ * compressed length and its CRC-32. A block that doesn't get smaller is
+ * stored as is, with both lengths equal.</p>
+ *
+ * @see ArchiveReader
+ */
+final class ArchiveWriter implements Closeable {
+
+    // The size of the uncompressed blocks.
+    static final int BLOCK = 1 << 20;
+
+    // The size of a block's header.
+    static final int BLOCK_HEADER = 12;
+
+    // Magic numbers of the header and footer.
+    static final int MAGIC = 0x454D4241; // "EMBA"
+    static final int INDEX_MAGIC = 0x454D4249; // "EMBI"
+
+    // The version of the format.
+    static final short VERSION = 1;
+
+    // The size of the header and footer.
+    static final int HEADER = 8;
+    static final int FOOTER = 16;
+
+    private final DataOutputStream out;
+    private final List<Entry> entries;
+
+    // The entry being written.
+    private Entry current;
+
+    // The number of bytes written so far.
+    private long position;
+
+    /**
+     * ArchiveWriter constructor.
+     *
+     * @param out the stream the archive is written to.
+     * @param buffer the size of the write buffer.
+     * @throws IOException if the header couldn't be written.
+     */
+    ArchiveWriter(OutputStream out, int buffer) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out, buffer));
+        this.entries = new ArrayList<Entry>();
+
+        this.out.writeInt(MAGIC);
+        this.out.writeShort(VERSION);
+        this.out.writeShort(0);
+        this.position = HEADER;
+    }
+
+    /**
+     * Start an entry.
+     *
+     * @param name the entry's name, using '/' as separator.
+     * @param modified the entry's modification time in milliseconds.
+     * @param compression the codec of the entry's blocks.
+     */
+    void begin(String name, long modified, Compression compression) {
+        if (this.current != null)
+            throw new IllegalStateException("An entry is already being written");
+
+        this.current = new Entry(name, modified, compression.id(), this.position);
+    }
+
+    /**
+     * Write a block of the current entry.
+     *
+     * @param size the block's length.
+     * @param crc the CRC-32 of the block.
+     * @param data the compressed block, or the block itself if it's stored.
+     * @param length the length of the data.
+     * @throws IOException if the block couldn't be written.
+     */
+    void block(int size, int crc, byte[] data, int length) throws IOException {
+        this.out.writeInt(size);
+        this.out.writeInt(length);
+        this.out.writeInt(crc);
+        this.out.write(data, 0, length);
+
+        this.position += BLOCK_HEADER + length;
+        this.current.size += size;
+        this.current.blocks++;
+    }
+
+    /**
+     * Complete the current entry.
+     */
+    void end() {
+        this.current.length = this.position - this.current.offset;
+        this.entries.add(this.current);
+        this.current = null;
+    }
+
+    /**
+     * Copy an entry of another archive without decompressing it.
+     *
+     * @param entry the entry.
+     * @param data the entry's blocks as they're stored in the other archive.
+     * @throws IOException if the entry couldn't be written.
+     */
+    void copy(ArchiveReader.Entry entry, byte[] data) throws IOException {
+        this.begin(entry.getName(), entry.getModified(), entry.getCompression());
+        this.out.write(data);
+
+        this.position += data.length;
+        this.current.size = entry.getSize();
+        this.current.blocks = entry.getBlocks();
+        this.end();
+    }
+
+    /**
+     * Write the index and footer, and close the stream.
+     *
+     * @throws IOException if the archive couldn't be completed.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            long index = this.position;
+
+            for (Entry entry : this.entries) {
+                byte[] name = entry.name.getBytes(StandardCharsets.UTF_8);
+                this.out.writeShort(name.length);
+                this.out.write(name);
+                this.out.writeLong(entry.modified);
+                this.out.writeLong(entry.size);
+                this.out.writeLong(entry.offset);
+                this.out.writeLong(entry.length);
+                this.out.writeInt(entry.blocks);
+                this.out.writeByte(entry.compression);
+            }
+
+            this.out.writeLong(index);
+            this.out.writeInt(this.entries.size());
+            this.out.writeInt(INDEX_MAGIC);
+        } finally {
+            this.out.close();
+        }
+    }
+
+    /**
+     * An entry being written.
+     */
+    private static final class Entry {
+
+        private final String name;
+        private final long modified;
+        private final int compression;
+        private final long offset;
+        private long size;
+        private long length;
+        private int blocks;
+
+        private Entry(String name, long modified, int compression, long offset) {
+            this.name = name;
+            this.modified = modified;
+            this.compression = compression;
+            this.offset = offset;
+        }
+
+    }
+
+}
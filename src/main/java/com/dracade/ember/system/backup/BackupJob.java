@@ -0,0 +1,138 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.system.backup;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A backup operation running in the background, along with its progress.
+ *
+ * <p>The totals grow while the world is being scanned, so the progress is
+ * only final once {@link #isScanned()} returns true.</p>
+ *
+ * @param <T> the result of the operation.
+ */
+public final class BackupJob<T> {
+
+    private final CompletableFuture<T> future;
+
+    private final AtomicLong files;
+    private final AtomicLong bytes;
+    private final AtomicLong completedFiles;
+    private final AtomicLong completedBytes;
+    private volatile boolean scanned;
+
+    /**
+     * BackupJob constructor.
+     */
+    public BackupJob() {
+        this.future = new CompletableFuture<T>();
+        this.files = new AtomicLong();
+        this.bytes = new AtomicLong();
+        this.completedFiles = new AtomicLong();
+        this.completedBytes = new AtomicLong();
+    }
+
+    /**
+     * @return the future completed with the result of the operation.
+     */
+    public CompletableFuture<T> future() {
+        return this.future;
+    }
+
+    /**
+     * @return the number of files found so far.
+     */
+    public long getFiles() {
+        return this.files.get();
+    }
+
+    /**
+     * @return the number of bytes found so far.
+     */
+    public long getBytes() {
+        return this.bytes.get();
+    }
+
+    /**
+     * @return the number of files processed.
+     */
+    public long getCompletedFiles() {
+        return this.completedFiles.get();
+    }
+
+    /**
+     * @return the number of bytes processed.
+     */
+    public long getCompletedBytes() {
+        return this.completedBytes.get();
+    }
+
+    /**
+     * @return true once every file has been found.
+     */
+    public boolean isScanned() {
+        return this.scanned;
+    }
+
+    /**
+     * @return the fraction of bytes processed, between 0 and 1.
+     */
+    public double getProgress() {
+        if (this.future.isDone())
+            return 1;
+
+        long bytes = this.bytes.get();
+        return (bytes > 0) ? Math.min(1, (double) this.completedBytes.get() / bytes) : 0;
+    }
+
+    /**
+     * Record a file that was found.
+     *
+     * @param size the file's size.
+     */
+    void found(long size) {
+        this.files.incrementAndGet();
+        this.bytes.addAndGet(size);
+    }
+
+    /**
+     * Record that every file has been found.
+     */
+    void scanned() {
+        this.scanned = true;
+    }
+
+    /**
+     * Record a file that was processed.
+     *
+     * @param size the file's size.
+     */
+    void completed(long size) {
+        this.completedFiles.incrementAndGet();
+        this.completedBytes.addAndGet(size);
+    }
+
+}
@@ -0,0 +1,241 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.system.backup;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Lists the files of an archive with their CRC-32C, size and modification
+ * time, along with the size of the archive itself. The manifest is kept next
+ * to its archive, with the {@link #EXTENSION} appended to the archive's name,
+ * and is only written once the archive is complete.
+ */
+public final class BackupManifest {
+
+    /**
+     * The extension appended to the name of an archive.
+     */
+    public static final String EXTENSION = ".manifest";
+
+    // The header of the manifests.
+    private static final String HEADER = "# Ember manifest 1";
+
+    private final Map<String, Entry> entries;
+    private long archiveSize;
+
+    /**
+     * BackupManifest constructor, for an empty manifest.
+     */
+    public BackupManifest() {
+        this.entries = new LinkedHashMap<String, Entry>();
+        this.archiveSize = -1;
+    }
+
+    /**
+     * Get the manifest file of an archive.
+     *
+     * @param archive the archive.
+     * @return the manifest file, which may not exist.
+     */
+    public static File of(File archive) {
+        return new File(archive.getPath() + EXTENSION);
+    }
+
+    /**
+     * Read the manifest of an archive.
+     *
+     * @param archive the archive.
+     * @return the manifest wrapped in an Optional, empty if the archive has
+     *         no manifest.
+     * @throws IOException if the manifest couldn't be read, or is invalid.
+     */
+    public static Optional<BackupManifest> read(File archive) throws IOException {
+        BackupManifest manifest = new BackupManifest();
+
+        try (BufferedReader reader = Files.newBufferedReader(BackupManifest.of(archive).toPath(), StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            if (!HEADER.equals(line))
+                throw new IOException("Invalid manifest of " + archive);
+
+            line = reader.readLine();
+            if (line == null || !line.startsWith("archive\t"))
+                throw new IOException("Invalid manifest of " + archive);
+            manifest.archiveSize = Long.parseLong(line.substring("archive\t".length()));
+
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", 4);
+                if (fields.length != 4)
+                    throw new IOException("Invalid manifest line: " + line);
+
+                manifest.add(fields[3], Long.parseLong(fields[1]), Long.parseLong(fields[2]), (int) Long.parseLong(fields[0], 16));
+            }
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid manifest of " + archive, e);
+        }
+        return Optional.of(manifest);
+    }
+
+    /**
+     * Add a file to the manifest.
+     *
+     * @param name the file's name in the archive.
+     * @param size the file's size.
+     * @param modified the file's modification time in milliseconds.
+     * @param checksum the file's CRC-32C.
+     */
+    public void add(String name, long size, long modified, int checksum) {
+        this.entries.put(name, new Entry(name, size, modified, checksum));
+    }
+
+    /**
+     * Write the manifest of an archive atomically, recording the archive's
+     * current size.
+     *
+     * @param archive the complete archive.
+     * @throws IOException if the manifest couldn't be written.
+     */
+    public void write(File archive) throws IOException {
+        Path manifest = BackupManifest.of(archive).toPath();
+        Path temporary = Files.createTempFile(manifest.toAbsolutePath().getParent(), "." + archive.getName(), ".tmp");
+        this.archiveSize = archive.length();
+
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                writer.write(HEADER);
+                writer.newLine();
+                writer.write("archive\t" + this.archiveSize);
+                writer.newLine();
+                for (Entry entry : this.entries.values()) {
+                    writer.write(String.format("%08x", entry.checksum) + "\t" + entry.size + "\t" + entry.modified + "\t" + entry.name);
+                    writer.newLine();
+                }
+            }
+            Files.move(temporary, manifest, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Check whether this manifest was written for an archive, by its size.
+     *
+     * @param archive the archive.
+     * @return true if the archive has the recorded size.
+     */
+    public boolean describes(File archive) {
+        return archive.length() == this.archiveSize;
+    }
+
+    /**
+     * @return the files, in the order they were archived.
+     */
+    public Collection<Entry> getEntries() {
+        return Collections.unmodifiableCollection(this.entries.values());
+    }
+
+    /**
+     * Get a file.
+     *
+     * @param name the file's name in the archive.
+     * @return the file wrapped in an Optional, empty if there's no such file.
+     */
+    public Optional<Entry> getEntry(String name) {
+        return Optional.ofNullable(this.entries.get(name));
+    }
+
+    /**
+     * A file of an archive.
+     */
+    public static final class Entry {
+
+        private final String name;
+        private final long size;
+        private final long modified;
+        private final int checksum;
+
+        private Entry(String name, long size, long modified, int checksum) {
+            this.name = name;
+            this.size = size;
+            this.modified = modified;
+            this.checksum = checksum;
+        }
+
+        /**
+         * @return the file's name in the archive, using '/' as separator.
+         */
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * @return the file's size.
+         */
+        public long getSize() {
+            return this.size;
+        }
+
+        /**
+         * @return the file's modification time in milliseconds.
+         */
+        public long getModified() {
+            return this.modified;
+        }
+
+        /**
+         * @return the file's CRC-32C.
+         */
+        public int getChecksum() {
+            return this.checksum;
+        }
+
+        /**
+         * Check whether a file still matches this entry, by its size and
+         * modification time.
+         *
+         * @param size the file's size.
+         * @param modified the file's modification time in milliseconds.
+         * @return true if the file looks unchanged.
+         */
+        public boolean matches(long size, long modified) {
+            return this.size == size && this.modified == modified;
+        }
+
+    }
+
+}
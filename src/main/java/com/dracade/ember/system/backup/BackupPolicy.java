@@ -0,0 +1,206 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.system.backup;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * When a world is backed up, and how many of its backups are kept.
+ *
+ * <p>By default a world is backed up hourly at any time of day, the last 24
+ * hourly and 7 daily backups are kept, I/O isn't throttled, and backups are
+ * deferred while a minigame is running in the world.</p>
+ */
+public final class BackupPolicy {
+
+    /**
+     * What to do with a backup that's due while a minigame is running in the
+     * world.
+     */
+    public enum Busy {
+
+        /**
+         * Skip the backup until the next interval.
+         */
+        SKIP,
+
+        /**
+         * Take the backup as soon as the world is free.
+         */
+        DEFER
+
+    }
+
+    private Duration interval;
+    private final List<LocalTime[]> windows;
+    private int hourly;
+    private int daily;
+    private long bytesPerSecond;
+    private Busy busy;
+
+    /**
+     * BackupPolicy constructor.
+     */
+    public BackupPolicy() {
+        this.interval = Duration.ofHours(1);
+        this.windows = new ArrayList<LocalTime[]>();
+        this.hourly = 24;
+        this.daily = 7;
+        this.busy = Busy.DEFER;
+    }
+
+    /**
+     * Set the time between backups.
+     *
+     * @param interval the time between backups.
+     * @return this policy.
+     */
+    public BackupPolicy interval(Duration interval) {
+        if (interval.isNegative() || interval.isZero())
+            throw new IllegalArgumentException("The interval must be positive");
+
+        this.interval = interval;
+        return this;
+    }
+
+    /**
+     * Add a window of time in which backups may run. Windows may wrap around
+     * midnight. Without any window, backups may run at any time.
+     *
+     * @param from the start of the window.
+     * @param to the end of the window.
+     * @return this policy.
+     */
+    public BackupPolicy window(LocalTime from, LocalTime to) {
+        this.windows.add(new LocalTime[] { from, to });
+        return this;
+    }
+
+    /**
+     * Set how many backups are kept. The latest backup of each of the last
+     * hours and days that have one is kept, along with the latest backup.
+     *
+     * @param hourly the number of hourly backups to keep.
+     * @param daily the number of daily backups to keep.
+     * @return this policy.
+     */
+    public BackupPolicy keep(int hourly, int daily) {
+        if (hourly < 0 || daily < 0)
+            throw new IllegalArgumentException("The number of backups kept can't be negative");
+
+        this.hourly = hourly;
+        this.daily = daily;
+        return this;
+    }
+
+    /**
+     * Limit the rate at which worlds are read.
+     *
+     * @param bytesPerSecond the number of bytes per second, or 0 for no limit.
+     * @return this policy.
+     */
+    public BackupPolicy throttle(long bytesPerSecond) {
+        this.bytesPerSecond = Math.max(0, bytesPerSecond);
+        return this;
+    }
+
+    /**
+     * Set what to do while a minigame is running in the world.
+     *
+     * @param busy what to do.
+     * @return this policy.
+     */
+    public BackupPolicy busy(Busy busy) {
+        this.busy = busy;
+        return this;
+    }
+
+    /**
+     * @return the time between backups.
+     */
+    public Duration getInterval() {
+        return this.interval;
+    }
+
+    /**
+     * @return the windows of time in which backups may run, as pairs of start
+     *         and end times.
+     */
+    public List<LocalTime[]> getWindows() {
+        return Collections.unmodifiableList(this.windows);
+    }
+
+    /**
+     * @return the number of hourly backups kept.
+     */
+    public int getHourly() {
+        return this.hourly;
+    }
+
+    /**
+     * @return the number of daily backups kept.
+     */
+    public int getDaily() {
+        return this.daily;
+    }
+
+    /**
+     * @return the number of bytes read per second, or 0 for no limit.
+     */
+    public long getBytesPerSecond() {
+        return this.bytesPerSecond;
+    }
+
+    /**
+     * @return what to do while a minigame is running in the world.
+     */
+    public Busy getBusy() {
+        return this.busy;
+    }
+
+    /**
+     * Check whether backups may run at a time of day.
+     *
+     * @param time the time of day.
+     * @return true if the time is within a window, or there are no windows.
+     */
+    public boolean allows(LocalTime time) {
+        if (this.windows.isEmpty())
+            return true;
+
+        for (LocalTime[] window : this.windows) {
+            boolean within = window[0].isAfter(window[1])
+                    ? !time.isBefore(window[0]) || time.isBefore(window[1])
+                    : !time.isBefore(window[0]) && time.isBefore(window[1]);
+            if (within)
+                return true;
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,244 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.system.backup;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Verifies that archives are complete and readable. Every file of every
+ * archive is read and checked in parallel on a worker pool, against the
+ * archive's own checksums and against the archive's manifest if it has one.
+ *
+ * @see BackupManifest
+ */
+public final class BackupVerifier {
+
+    // The size of the read buffer.
+    private static final int BUFFER = 1 << 16;
+
+    private final ExecutorService workers;
+
+    /**
+     * BackupVerifier constructor.
+     *
+     * @param workers the pool reading the files.
+     */
+    public BackupVerifier(ExecutorService workers) {
+        this.workers = workers;
+    }
+
+    /**
+     * Verify archives, either Ember archives or ZIP files. Blocks until every
+     * archive is verified, so this must not be called from the worker pool.
+     *
+     * @param archives the archives.
+     * @param job the job tracking the progress.
+     * @return the archives that failed verification, with the reason.
+     * @throws IOException if interrupted while verifying.
+     */
+    public Map<File, IOException> verify(Collection<File> archives, BackupJob<?> job) throws IOException {
+        Map<File, IOException> failures = new ConcurrentHashMap<File, IOException>();
+        List<Closeable> opened = new ArrayList<Closeable>();
+        List<Future<?>> pending = new ArrayList<Future<?>>();
+
+        try {
+            // Read every index first, so that all archives are read at once.
+            List<Check> checks = new ArrayList<Check>();
+            for (File archive : archives) {
+                try {
+                    this.scan(archive, opened, checks, job);
+                } catch (IOException e) {
+                    failures.put(archive, e);
+                }
+            }
+            job.scanned();
+
+            for (Check check : checks) {
+                pending.add(this.workers.submit(() -> {
+                    try {
+                        check.run();
+                    } catch (IOException e) {
+                        failures.putIfAbsent(check.archive, e);
+                    }
+                    job.completed(check.size);
+                }));
+            }
+
+            for (Future<?> future : pending) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while verifying", e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        } finally {
+            for (Future<?> future : pending) {
+                future.cancel(true);
+            }
+            for (Closeable closeable : opened) {
+                try {
+                    closeable.close();
+                } catch (IOException e) {
+                    // Nothing was written.
+                }
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Open an archive, compare its index with its manifest, and list the
+     * checks of its files.
+     */
+    private void scan(File archive, List<Closeable> opened, List<Check> checks, BackupJob<?> job) throws IOException {
+        Optional<BackupManifest> manifest = BackupManifest.read(archive);
+        if (manifest.isPresent() && !manifest.get().describes(archive))
+            throw new IOException("The archive doesn't match its manifest " + archive);
+
+        List<Check> found = new ArrayList<Check>();
+        if (archive.getName().endsWith(ArchiveReader.EXTENSION)) {
+            ArchiveReader reader = new ArchiveReader(archive.toPath());
+            opened.add(reader);
+
+            for (ArchiveReader.Entry entry : reader.getEntries()) {
+                BackupManifest.Entry expected = BackupVerifier.expected(manifest, entry.getName(), entry.getSize());
+                found.add(new Check(archive, entry.getName(), entry.getSize(), -1, expected, () -> reader.open(entry)));
+            }
+        } else {
+            ZipFile zip = new ZipFile(archive);
+            opened.add(zip);
+
+            for (Enumeration<? extends ZipEntry> e = zip.entries(); e.hasMoreElements();) {
+                ZipEntry entry = e.nextElement();
+                if (entry.isDirectory())
+                    continue;
+
+                BackupManifest.Entry expected = BackupVerifier.expected(manifest, entry.getName(), entry.getSize());
+                found.add(new Check(archive, entry.getName(), entry.getSize(), entry.getCrc(), expected, () -> zip.getInputStream(entry)));
+            }
+        }
+
+        // Every file of the manifest must be in the archive.
+        if (manifest.isPresent() && manifest.get().getEntries().size() != found.size())
+            throw new IOException("The archive is missing files of its manifest " + archive);
+
+        for (Check check : found) {
+            job.found(Math.max(0, check.size));
+        }
+        checks.addAll(found);
+    }
+
+    /**
+     * Get a file's entry in the manifest, if there's a manifest.
+     */
+    private static BackupManifest.Entry expected(Optional<BackupManifest> manifest, String name, long size) throws IOException {
+        if (!manifest.isPresent())
+            return null;
+
+        Optional<BackupManifest.Entry> entry = manifest.get().getEntry(name);
+        if (!entry.isPresent() || entry.get().getSize() != size)
+            throw new IOException("The archive doesn't match its manifest at " + name);
+
+        return entry.get();
+    }
+
+    /**
+     * Opens a file of an archive.
+     */
+    @FunctionalInterface
+    private interface Source {
+
+        InputStream open() throws IOException;
+
+    }
+
+    /**
+     * The check of a file of an archive.
+     */
+    private static final class Check {
+
+        private final File archive;
+        private final String name;
+        private final long size;
+        private final long crc;
+        private final BackupManifest.Entry expected;
+        private final Source source;
+
+        private Check(File archive, String name, long size, long crc, BackupManifest.Entry expected, Source source) {
+            this.archive = archive;
+            this.name = name;
+            this.size = size;
+            this.crc = crc;
+            this.expected = expected;
+            this.source = source;
+        }
+
+        /**
+         * Read the file, checking its size, CRC-32 if the archive doesn't
+         * check it itself, and CRC-32C if it's in a manifest.
+         *
+         * @throws IOException if the file is corrupted.
+         */
+        private void run() throws IOException {
+            CRC32 crc = new CRC32();
+            Crc32c checksum = new Crc32c();
+            byte[] buffer = new byte[BUFFER];
+            long size = 0;
+
+            try (InputStream in = this.source.open()) {
+                int n;
+                while ((n = in.read(buffer)) > 0) {
+                    crc.update(buffer, 0, n);
+                    checksum.update(buffer, 0, n);
+                    size += n;
+                }
+            } catch (IOException e) {
+                throw new IOException("Unreadable file " + this.name + " in " + this.archive, e);
+            }
+
+            if (size != this.size || (this.crc >= 0 && crc.getValue() != this.crc)
+                    || (this.expected != null && (int) checksum.getValue() != this.expected.getChecksum()))
+                throw new IOException("Corrupted file " + this.name + " in " + this.archive);
+        }
+
+    }
+
+}
@@ -0,0 +1,119 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.system.backup;
+
+import java.io.IOException;
+import java.util.zip.Deflater;
+
+/**
+ * A block compression codec of the Ember archive format. Blocks are
+ * compressed independently, so that they can be compressed in parallel and
+ * read without the rest of the archive.
+ *
+ * <p>Codecs are identified in archives by {@link #id()}, so the identifiers
+ * of the built-in codecs must never change.</p>
+ */
+public interface Compression {
+
+    /**
+     * Stores the blocks as they are. Fastest, and best for region files,
+     * which are already compressed.
+     */
+    Compression STORE = new Store();
+
+    /**
+     * An LZ4 compatible block codec. Much faster than DEFLATE for a lower
+     * ratio.
+     */
+    Compression LZ4 = new Lz4();
+
+    /**
+     * Get a DEFLATE codec.
+     *
+     * @param level the compression level, from 1 to 9, or -1 for the default
+     *        level.
+     * @return the codec.
+     */
+    static Compression deflate(int level) {
+        return new Deflate(level);
+    }
+
+    /**
+     * DEFLATE at its fastest level.
+     */
+    Compression DEFLATE_FAST = deflate(Deflater.BEST_SPEED);
+
+    /**
+     * Get the codec of an archive.
+     *
+     * @param id the codec's identifier.
+     * @return the codec, able to decompress.
+     * @throws IOException if the codec is unknown.
+     */
+    static Compression byId(int id) throws IOException {
+        switch (id) {
+            case Store.ID:
+                return STORE;
+            case Deflate.ID:
+                return DEFLATE_FAST;
+            case Lz4.ID:
+                return LZ4;
+            default:
+                throw new IOException("Unknown compression " + id);
+        }
+    }
+
+    /**
+     * @return the codec's identifier in archives.
+     */
+    int id();
+
+    /**
+     * @return the codec's name.
+     */
+    String name();
+
+    /**
+     * Compress a block.
+     *
+     * @param source the block.
+     * @param length the block's length.
+     * @param destination the buffer receiving the compressed block, at least
+     *        as long as the block.
+     * @return the compressed length, or -1 if the block doesn't get smaller.
+     */
+    int compress(byte[] source, int length, byte[] destination);
+
+    /**
+     * Decompress a block.
+     *
+     * @param source the compressed block.
+     * @param length the compressed length.
+     * @param destination the buffer receiving the block.
+     * @param size the block's length.
+     * @throws IOException if the block is corrupted.
+     */
+    void decompress(byte[] source, int length, byte[] destination, int size) throws IOException;
+
+}
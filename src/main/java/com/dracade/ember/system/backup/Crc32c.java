@@ -0,0 +1,161 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.system.backup;
+
+import java.util.zip.Checksum;
+
+/**
+ * Computes CRC-32C (Castagnoli) checksums, eight bytes at a time.
+ * {@code java.util.zip.CRC32C} only exists from Java 9.
+ */
+final class Crc32c implements Checksum {
+
+    // The reversed Castagnoli polynomial.
+    private static final int POLYNOMIAL = 0x82F63B78;
+
+    // TABLES[k][b] is the CRC of byte b followed by k zero bytes.
+    private static final int[][] TABLES = new int[8][256];
+
+    static {
+        for (int b = 0; b < 256; b++) {
+            int crc = b;
+            for (int i = 0; i < 8; i++) {
+                crc = (crc >>> 1) ^ (POLYNOMIAL & -(crc & 1));
+            }
+            TABLES[0][b] = crc;
+        }
+        for (int b = 0; b < 256; b++) {
+            for (int k = 1; k < 8; k++) {
+                int crc = TABLES[k - 1][b];
+                TABLES[k][b] = (crc >>> 8) ^ TABLES[0][crc & 0xFF];
+            }
+        }
+    }
+
+    private int crc = 0xFFFFFFFF;
+
+    @Override
+    public void update(int b) {
+        this.crc = (this.crc >>> 8) ^ TABLES[0][(this.crc ^ b) & 0xFF];
+    }
+
+    @Override
+    public void update(byte[] b, int off, int len) {
+        int crc = this.crc;
+        int end = off + len;
+
+        for (; off + 8 <= end; off += 8) {
+            int low = crc ^ ((b[off] & 0xFF) | (b[off + 1] & 0xFF) << 8 | (b[off + 2] & 0xFF) << 16 | (b[off + 3] & 0xFF) << 24);
+            crc = TABLES[7][low & 0xFF] ^ TABLES[6][(low >>> 8) & 0xFF] ^ TABLES[5][(low >>> 16) & 0xFF] ^ TABLES[4][low >>> 24]
+                    ^ TABLES[3][b[off + 4] & 0xFF] ^ TABLES[2][b[off + 5] & 0xFF] ^ TABLES[1][b[off + 6] & 0xFF] ^ TABLES[0][b[off + 7] & 0xFF];
+        }
+        for (; off < end; off++) {
+            crc = (crc >>> 8) ^ TABLES[0][(crc ^ b[off]) & 0xFF];
+        }
+        this.crc = crc;
+    }
+
+    @Override
+    public long getValue() {
+        return ~this.crc & 0xFFFFFFFFL;
+    }
+
+    @Override
+    public void reset() {
+        this.crc = 0xFFFFFFFF;
+    }
+
+    /**
+     * Compute the CRC-32C of some data.
+     *
+     * @param b the data.
+     * @param off the offset of the data.
+     * @param len the length of the data.
+     * @return the checksum.
+     */
+    static int of(byte[] b, int off, int len) {
+        Crc32c crc = new Crc32c();
+        crc.update(b, off, len);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Compute the CRC-32C of two pieces of data put end to end from their
+     * own checksums, the way zlib's crc32_combine does, so that blocks can
+     * be checksummed in parallel.
+     *
+     * @param first the checksum of the first piece.
+     * @param second the checksum of the second piece.
+     * @param length the length of the second piece.
+     * @return the checksum of both pieces.
+     */
+    static int combine(int first, int second, long length) {
+        if (length <= 0)
+            return first;
+
+        // The operator appending one zero bit, then two and four.
+        int[] odd = new int[32];
+        int[] even = new int[32];
+        odd[0] = POLYNOMIAL;
+        for (int i = 1, row = 1; i < 32; i++, row <<= 1) {
+            odd[i] = row;
+        }
+        Crc32c.square(even, odd);
+        Crc32c.square(odd, even);
+
+        // Append the zero bytes to the first checksum.
+        int crc = first;
+        do {
+            Crc32c.square(even, odd);
+            if ((length & 1) != 0)
+                crc = Crc32c.times(even, crc);
+            length >>>= 1;
+            if (length == 0)
+                break;
+
+            Crc32c.square(odd, even);
+            if ((length & 1) != 0)
+                crc = Crc32c.times(odd, crc);
+            length >>>= 1;
+        } while (length != 0);
+
+        return crc ^ second;
+    }
+
+    private static int times(int[] matrix, int vector) {
+        int sum = 0;
+        for (int i = 0; vector != 0; i++, vector >>>= 1) {
+            if ((vector & 1) != 0)
+                sum ^= matrix[i];
+        }
+        return sum;
+    }
+
+    private static void square(int[] square, int[] matrix) {
+        for (int i = 0; i < 32; i++) {
+            square[i] = Crc32c.times(matrix, matrix[i]);
+        }
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.system.backup;
+
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses blocks with raw DEFLATE. Every level decompresses the same way,
+ * so they share an identifier.
+ */
+final class Deflate implements Compression {
+
+    static final int ID = 1;
+
+    private final int level;
+
+    /**
+     * Deflate constructor.
+     *
+     * @param level the compression level.
+     */
+    Deflate(int level) {
+        if (level != Deflater.DEFAULT_COMPRESSION && (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION))
+            throw new IllegalArgumentException("Invalid compression level " + level);
+
+        this.level = level;
+    }
+
+    @Override
+    public int id() {
+        return ID;
+    }
+
+    @Override
+    public String name() {
+        return "deflate-" + this.level;
+    }
+
+    @Override
+    public int compress(byte[] source, int length, byte[] destination) {
+        Deflater deflater = new Deflater(this.level, true);
+        try {
+            deflater.setInput(source, 0, length);
+            deflater.finish();
+
+            int written = 0;
+            while (!deflater.finished() && written < length) {
+                written += deflater.deflate(destination, written, length - written);
+            }
+            return (deflater.finished() && written < length) ? written : -1;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Override
+    public void decompress(byte[] source, int length, byte[] destination, int size) throws IOException {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(source, 0, length);
+
+            int read = 0;
+            while (read < size) {
+                int n = inflater.inflate(destination, read, size - read);
+                if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary()))
+                    break;
+                read += n;
+            }
+
+            if (read != size)
+                throw new IOException("Truncated DEFLATE block");
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupted DEFLATE block", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+}
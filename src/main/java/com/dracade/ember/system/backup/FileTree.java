@@ -0,0 +1,260 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.system.backup;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * File tree operations shared by the backup tools.
+ */
+public final class FileTree {
+
+    // Whether copy-on-write clones are worth trying on this system.
+    private static volatile boolean reflinks = System.getProperty("os.name", "").toLowerCase(Locale.ROOT).contains("linux");
+
+    private FileTree() {
+    }
+
+    /**
+     * Delete a directory and everything in it. Does nothing if it doesn't
+     * exist.
+     *
+     * @param directory the directory.
+     * @throws IOException if the directory couldn't be deleted.
+     */
+    public static void delete(Path directory) throws IOException {
+        if (!Files.exists(directory))
+            return;
+
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                Files.deleteIfExists(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                if (e != null && !(e instanceof NoSuchFileException))
+                    throw e;
+
+                Files.deleteIfExists(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Get a sibling of a path to stage changes in, on the same file system so
+     * that it can be moved in place atomically.
+     *
+     * @param path the path.
+     * @param purpose a short description of the sibling.
+     * @return the sibling, which doesn't exist yet.
+     */
+    public static Path sibling(Path path, String purpose) {
+        Path parent = path.toAbsolutePath().getParent();
+        return parent.resolve("." + path.getFileName() + "." + purpose + "-" + System.nanoTime());
+    }
+
+    /**
+     * Replace a directory with a staged one. The old directory, if any, is
+     * moved aside first and only deleted once the staged one is in place, so
+     * the destination never holds a partial tree.
+     *
+     * @param staged the staged directory.
+     * @param destination the directory to replace.
+     * @param overwrite whether an existing destination may be replaced.
+     * @throws IOException if the directory couldn't be replaced.
+     */
+    public static void swap(Path staged, Path destination, boolean overwrite) throws IOException {
+        Path old = null;
+
+        if (Files.exists(destination)) {
+            if (!overwrite)
+                throw new FileAlreadyExistsException(destination.toString());
+
+            old = FileTree.sibling(destination, "old");
+            FileTree.move(destination, old);
+        }
+
+        try {
+            FileTree.move(staged, destination);
+        } catch (IOException e) {
+            // Put the old directory back.
+            if (old != null)
+                FileTree.move(old, destination);
+            throw e;
+        }
+
+        if (old != null)
+            FileTree.delete(old);
+    }
+
+    /**
+     * Clone a directory using copy-on-write, if the system supports it. A
+     * clone that fails partway is deleted.
+     *
+     * @param source the directory.
+     * @param target the clone, which must not exist.
+     * @return true if the directory was cloned.
+     * @throws IOException if a partial clone couldn't be deleted.
+     */
+    public static boolean clone(Path source, Path target) throws IOException {
+        if (!FileTree.reflinks)
+            return false;
+
+        try {
+            Process process = new ProcessBuilder("cp", "-a", "--reflink=always", source.toString(), target.toString())
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.PIPE)
+                    .start();
+            process.getOutputStream().close();
+
+            // Drain the output so that the process can't block on it.
+            while (process.getInputStream().read() != -1) {
+            }
+
+            if (process.waitFor(1, TimeUnit.MINUTES) && process.exitValue() == 0)
+                return true;
+
+            process.destroyForcibly();
+        } catch (IOException e) {
+            // No cp on this system.
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            FileTree.delete(target);
+            return false;
+        }
+
+        // Don't try again, this file system can't clone.
+        FileTree.reflinks = false;
+        FileTree.delete(target);
+        return false;
+    }
+
+    /**
+     * Make a directory a copy of another. Files with the same size and
+     * modification time as the source are kept, the others are copied in
+     * parallel, and files missing from the source are deleted.
+     *
+     * @param source the directory to copy.
+     * @param target the directory to update.
+     * @param workers the pool copying the files.
+     * @param job the job tracking the progress.
+     * @throws IOException if the directory couldn't be copied.
+     */
+    public static void mirror(Path source, Path target, ExecutorService workers, BackupJob<?> job) throws IOException {
+        Set<Path> kept = new HashSet<Path>();
+        List<Future<Void>> pending = new ArrayList<Future<Void>>();
+
+        try (Stream<Path> paths = Files.walk(source)) {
+            Iterator<Path> iterator = paths.iterator();
+
+            while (iterator.hasNext()) {
+                Path path = iterator.next();
+                Path relative = source.relativize(path);
+                Path copy = target.resolve(relative.toString());
+                kept.add(copy);
+
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                if (attributes.isDirectory()) {
+                    if (!Files.isDirectory(copy)) {
+                        Files.deleteIfExists(copy);
+                        Files.createDirectories(copy);
+                    }
+                    continue;
+                }
+
+                long size = attributes.size();
+                job.found(size);
+
+                // Skip the files that weren't modified since the template.
+                if (Files.isRegularFile(copy) && Files.size(copy) == size
+                        && Files.getLastModifiedTime(copy).equals(attributes.lastModifiedTime())) {
+                    job.completed(size);
+                    continue;
+                }
+
+                pending.add(workers.submit(() -> {
+                    Files.copy(path, copy, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+                    job.completed(size);
+                    return null;
+                }));
+            }
+        }
+        job.scanned();
+
+        for (Future<Void> future : pending) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while copying " + source, e);
+            } catch (ExecutionException e) {
+                throw (e.getCause() instanceof IOException) ? (IOException) e.getCause() : new IOException(e.getCause());
+            }
+        }
+
+        // Delete what the source doesn't have, deepest first.
+        List<Path> extra = new ArrayList<Path>();
+        try (Stream<Path> paths = Files.walk(target)) {
+            paths.filter(path -> !kept.contains(path)).forEach(extra::add);
+        }
+        extra.sort(Comparator.reverseOrder());
+        for (Path path : extra) {
+            FileTree.delete(path);
+        }
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target);
+        }
+    }
+
+}
@@ -0,0 +1,236 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.system.backup;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A pure Java codec producing the LZ4 block format. Matches are found with a
+ * single-entry hash table, trading ratio for speed like the reference "fast"
+ * compressor.
+ *
+ * <p>A block is a list of sequences, each made of a token holding the number
+ * of literals and the match length, the literals, and the match as a little
+ * endian offset into the previous 64 KiB. The last sequence only has
+ * literals.</p>
+ */
+final class Lz4 implements Compression {
+
+    static final int ID = 2;
+
+    // The shortest match.
+    private static final int MIN_MATCH = 4;
+
+    // The last bytes of a block are always literals, and the last match must
+    // start this far from the end.
+    private static final int LAST_LITERALS = 5;
+    private static final int MATCH_FIND_LIMIT = 12;
+
+    // The farthest match.
+    private static final int MAX_OFFSET = 0xFFFF;
+
+    // The size of the hash table, as a power of two.
+    private static final int HASH_LOG = 16;
+
+    // The hash tables, reused by each worker.
+    private static final ThreadLocal<int[]> TABLES = ThreadLocal.withInitial(() -> new int[1 << HASH_LOG]);
+
+    @Override
+    public int id() {
+        return ID;
+    }
+
+    @Override
+    public String name() {
+        return "lz4";
+    }
+
+    @Override
+    public int compress(byte[] source, int length, byte[] destination) {
+        int[] table = TABLES.get();
+        Arrays.fill(table, -1);
+
+        int anchor = 0;
+        int position = 0;
+        int output = 0;
+        int limit = length - MATCH_FIND_LIMIT;
+        int matchLimit = length - LAST_LITERALS;
+
+        while (position < limit) {
+            int hash = Lz4.hash(Lz4.readInt(source, position));
+            int reference = table[hash];
+            table[hash] = position;
+
+            if (reference < 0 || position - reference > MAX_OFFSET || Lz4.readInt(source, reference) != Lz4.readInt(source, position)) {
+                // Skip faster through data that doesn't compress.
+                position += 1 + ((position - anchor) >>> 6);
+                continue;
+            }
+
+            // Extend the match backwards, then forwards.
+            while (position > anchor && reference > 0 && source[position - 1] == source[reference - 1]) {
+                position--;
+                reference--;
+            }
+            int match = MIN_MATCH;
+            while (position + match < matchLimit && source[reference + match] == source[position + match]) {
+                match++;
+            }
+
+            output = Lz4.sequence(source, anchor, position - anchor, position - reference, match, destination, output, length);
+            if (output < 0)
+                return -1;
+
+            position += match;
+            anchor = position;
+
+            if (position - 2 < limit)
+                table[Lz4.hash(Lz4.readInt(source, position - 2))] = position - 2;
+        }
+
+        output = Lz4.sequence(source, anchor, length - anchor, 0, 0, destination, output, length);
+        return (output < 0 || output >= length) ? -1 : output;
+    }
+
+    @Override
+    public void decompress(byte[] source, int length, byte[] destination, int size) throws IOException {
+        int input = 0;
+        int output = 0;
+
+        try {
+            while (input < length) {
+                int token = source[input++] & 0xFF;
+
+                int literals = token >>> 4;
+                if (literals == 15) {
+                    int b;
+                    do {
+                        b = source[input++] & 0xFF;
+                        literals += b;
+                    } while (b == 255);
+                }
+
+                if (input + literals > length || output + literals > size)
+                    throw new IOException("Corrupted LZ4 block");
+
+                System.arraycopy(source, input, destination, output, literals);
+                input += literals;
+                output += literals;
+
+                // The last sequence has no match.
+                if (input == length)
+                    break;
+
+                int offset = (source[input] & 0xFF) | (source[input + 1] & 0xFF) << 8;
+                input += 2;
+
+                int match = token & 0x0F;
+                if (match == 15) {
+                    int b;
+                    do {
+                        b = source[input++] & 0xFF;
+                        match += b;
+                    } while (b == 255);
+                }
+                match += MIN_MATCH;
+
+                if (offset == 0 || offset > output || output + match > size)
+                    throw new IOException("Corrupted LZ4 block");
+
+                // Matches may overlap their own output.
+                int from = output - offset;
+                if (offset >= match) {
+                    System.arraycopy(destination, from, destination, output, match);
+                    output += match;
+                } else {
+                    for (int i = 0; i < match; i++) {
+                        destination[output++] = destination[from + i];
+                    }
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Corrupted LZ4 block", e);
+        }
+
+        if (output != size)
+            throw new IOException("Truncated LZ4 block");
+    }
+
+    /**
+     * Write a sequence.
+     *
+     * @return the new output position, or -1 if the output is full.
+     */
+    private static int sequence(byte[] source, int from, int literals, int offset, int match, byte[] destination, int output, int capacity) {
+        // Token, literal length, literals, offset and match length.
+        int needed = 1 + literals / 255 + 1 + literals + 2 + match / 255 + 1;
+        if (output + needed > capacity)
+            return -1;
+
+        int token = output++;
+        if (literals >= 15) {
+            destination[token] = (byte) 0xF0;
+            output = Lz4.length(destination, output, literals - 15);
+        } else {
+            destination[token] = (byte) (literals << 4);
+        }
+
+        System.arraycopy(source, from, destination, output, literals);
+        output += literals;
+
+        if (match == 0)
+            return output;
+
+        destination[output++] = (byte) offset;
+        destination[output++] = (byte) (offset >>> 8);
+
+        int code = match - MIN_MATCH;
+        if (code >= 15) {
+            destination[token] |= 0x0F;
+            output = Lz4.length(destination, output, code - 15);
+        } else {
+            destination[token] |= (byte) code;
+        }
+        return output;
+    }
+
+    private static int length(byte[] destination, int output, int length) {
+        while (length >= 255) {
+            destination[output++] = (byte) 255;
+            length -= 255;
+        }
+        destination[output++] = (byte) length;
+        return output;
+    }
+
+    private static int readInt(byte[] data, int i) {
+        return (data[i] & 0xFF) | (data[i + 1] & 0xFF) << 8 | (data[i + 2] & 0xFF) << 16 | (data[i + 3] & 0xFF) << 24;
+    }
+
+    private static int hash(int value) {
+        return (value * -1640531535) >>> (32 - HASH_LOG);
+    }
+
+}
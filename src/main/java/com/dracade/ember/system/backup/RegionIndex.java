@@ -0,0 +1,202 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.system.backup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * The chunk table of an Anvil region file, along with the hashes of the
+ * stored chunks.
+ *
+ * <p>A region file starts with two 4 KiB tables of 1024 entries: the
+ * location of each chunk, as a sector offset in the upper 24 bits and a
+ * sector count in the lower 8 bits, and the time each chunk was last saved.
+ * Each chunk is then stored at its sector as a 4 byte length, followed by
+ * that many bytes of compression type and data.</p>
+ */
+final class RegionIndex {
+
+    // The number of chunks in a region.
+    static final int CHUNKS = 1024;
+
+    // The size of a region file's sectors.
+    static final int SECTOR = 4096;
+
+    // The most sectors a chunk can span.
+    static final int MAX_SECTORS = 0xFF;
+
+    // The size of a region file's header.
+    static final int HEADER = 2 * SECTOR;
+
+    // The size of a hash.
+    static final int HASH = 32;
+
+    // The size of a serialized index.
+    private static final int SIZE = 8 + CHUNKS * (8 + HASH);
+
+    // Magic number of serialized indexes.
+    private static final long MAGIC = 0x454D42525245474EL; // "EMBRREGN"
+
+    final int[] locations;
+    final int[] timestamps;
+    final byte[][] hashes;
+
+    private RegionIndex() {
+        this.locations = new int[CHUNKS];
+        this.timestamps = new int[CHUNKS];
+        this.hashes = new byte[CHUNKS][];
+    }
+
+    /**
+     * Read the header of a region file.
+     *
+     * @param channel the region file.
+     * @return the index, without hashes.
+     * @throws IOException if the file isn't a valid region file.
+     */
+    static RegionIndex read(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < HEADER)
+            throw new IOException("Region file too small");
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0)
+                throw new IOException("Unexpected end of region file");
+        }
+        header.flip();
+
+        RegionIndex index = new RegionIndex();
+        for (int i = 0; i < CHUNKS; i++) {
+            int location = header.getInt(i * 4);
+
+            // Reject chunks pointing into the header or past the end.
+            if (location != 0) {
+                long offset = (long) (location >>> 8) * SECTOR;
+                if (offset < HEADER || offset + (location & MAX_SECTORS) * (long) SECTOR > size + SECTOR)
+                    throw new IOException("Invalid location of chunk " + i);
+            }
+
+            index.locations[i] = location;
+            index.timestamps[i] = header.getInt(SECTOR + i * 4);
+        }
+        return index;
+    }
+
+    /**
+     * Read a chunk's record from a region file.
+     *
+     * @param channel the region file.
+     * @param chunk the chunk's index.
+     * @return the record, length prefix included.
+     * @throws IOException if the record couldn't be read.
+     */
+    byte[] chunk(FileChannel channel, int chunk) throws IOException {
+        long offset = (long) (this.locations[chunk] >>> 8) * SECTOR;
+        long capacity = (this.locations[chunk] & MAX_SECTORS) * (long) SECTOR;
+
+        ByteBuffer length = ByteBuffer.allocate(4);
+        RegionIndex.readFully(channel, length, offset);
+        int size = length.getInt(0);
+
+        if (size <= 0 || size + 4L > capacity)
+            throw new IOException("Invalid length of chunk " + chunk);
+
+        ByteBuffer record = ByteBuffer.allocate(size + 4);
+        RegionIndex.readFully(channel, record, offset);
+        return record.array();
+    }
+
+    /**
+     * Check whether a chunk is saved the same way as in another index, meaning
+     * its stored copy can be reused.
+     *
+     * <p>Save times are in whole seconds, so a chunk saved again within the
+     * same second keeps its save time. Only chunks saved in an earlier second
+     * than the other region file's last modification are trusted, since any
+     * later save has a later save time.</p>
+     *
+     * @param other the other index.
+     * @param chunk the chunk's index.
+     * @param modified the other region file's modification time in
+     *        milliseconds.
+     * @return true if the chunk is unchanged.
+     */
+    boolean unchanged(RegionIndex other, int chunk, long modified) {
+        // Chunks without a save time can't be compared.
+        return this.timestamps[chunk] != 0
+                && (this.timestamps[chunk] & 0xFFFFFFFFL) < modified / 1000
+                && this.timestamps[chunk] == other.timestamps[chunk]
+                && this.locations[chunk] == other.locations[chunk]
+                && other.hashes[chunk] != null;
+    }
+
+    /**
+     * @return the serialized index.
+     */
+    byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(SIZE);
+        buffer.putLong(MAGIC);
+
+        for (int i = 0; i < CHUNKS; i++) {
+            buffer.putInt(this.locations[i]).putInt(this.timestamps[i]);
+            buffer.put((this.hashes[i] == null) ? new byte[HASH] : this.hashes[i]);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Deserialize an index.
+     *
+     * @param bytes the serialized index.
+     * @return the index.
+     * @throws IOException if the index is invalid.
+     */
+    static RegionIndex fromBytes(byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (bytes.length != SIZE || buffer.getLong() != MAGIC)
+            throw new IOException("Invalid region index");
+
+        RegionIndex index = new RegionIndex();
+        for (int i = 0; i < CHUNKS; i++) {
+            index.locations[i] = buffer.getInt();
+            index.timestamps[i] = buffer.getInt();
+
+            byte[] hash = new byte[HASH];
+            buffer.get(hash);
+            index.hashes[i] = (index.locations[i] == 0) ? null : hash;
+        }
+        return index;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0)
+                throw new IOException("Unexpected end of region file");
+        }
+    }
+
+}
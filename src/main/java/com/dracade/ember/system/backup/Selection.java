@@ -0,0 +1,168 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.system.backup;
+
+import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * A selection of the files of a backup, by their path within the world,
+ * using '/' as separator.
+ */
+public final class Selection implements Predicate<String> {
+
+    private final Predicate<String> predicate;
+
+    // Whether only player data is selected.
+    private final boolean players;
+
+    private Selection(Predicate<String> predicate, boolean players) {
+        this.predicate = predicate;
+        this.players = players;
+    }
+
+    /**
+     * Select the files matching any of some glob patterns. {@code *} matches
+     * within a directory, {@code **} across directories, {@code ?} a single
+     * character, and {@code {a,b}} either alternative.
+     *
+     * @param globs the patterns, such as {@code "playerdata/*.dat"}.
+     * @return the selection.
+     */
+    public static Selection glob(String... globs) {
+        StringBuilder regex = new StringBuilder();
+
+        for (String glob : globs) {
+            if (regex.length() > 0)
+                regex.append('|');
+            regex.append('(').append(Selection.regex(glob)).append(')');
+        }
+
+        Pattern pattern = Pattern.compile(regex.toString());
+        return new Selection(name -> pattern.matcher(name).matches(), false);
+    }
+
+    /**
+     * Select a region file of the world.
+     *
+     * @param x the region's x coordinate, which is the block's x coordinate
+     *        divided by 512.
+     * @param z the region's z coordinate.
+     * @return the selection.
+     */
+    public static Selection region(int x, int z) {
+        String name = "region/r." + x + "." + z + ".mca";
+        return new Selection(name::equals, false);
+    }
+
+    /**
+     * Select the region file holding a block.
+     *
+     * @param x the block's x coordinate.
+     * @param z the block's z coordinate.
+     * @return the selection.
+     */
+    public static Selection regionAt(int x, int z) {
+        return Selection.region(x >> 9, z >> 9);
+    }
+
+    /**
+     * Select the data of a player. Only the default world holds player data.
+     *
+     * @param player the player's unique identifier.
+     * @return the selection.
+     */
+    public static Selection player(UUID player) {
+        String name = "playerdata/" + player + ".dat";
+        return new Selection(name::equals, true);
+    }
+
+    /**
+     * Select the files selected by this selection or another.
+     *
+     * @param other the other selection.
+     * @return the combined selection.
+     */
+    public Selection or(Selection other) {
+        return new Selection(this.predicate.or(other.predicate), this.players && other.players);
+    }
+
+    /**
+     * Check whether the selection only selects player data, which can be
+     * restored while the world is loaded. Glob patterns never count as player
+     * data, whatever they match.
+     *
+     * @return true if only player data is selected.
+     */
+    public boolean isPlayerData() {
+        return this.players;
+    }
+
+    @Override
+    public boolean test(String name) {
+        return this.predicate.test(name);
+    }
+
+    /**
+     * Translate a glob pattern to a regular expression.
+     */
+    private static String regex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        boolean alternatives = false;
+
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+
+            if (c == '*' && i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                // "**/" also matches no directory at all.
+                if (i + 2 < glob.length() && glob.charAt(i + 2) == '/') {
+                    regex.append("(?:.*/)?");
+                    i += 2;
+                } else {
+                    regex.append(".*");
+                    i++;
+                }
+            } else if (c == '*') {
+                regex.append("[^/]*");
+            } else if (c == '?') {
+                regex.append("[^/]");
+            } else if (c == '{' && !alternatives) {
+                regex.append("(?:");
+                alternatives = true;
+            } else if (c == '}' && alternatives) {
+                regex.append(')');
+                alternatives = false;
+            } else if (c == ',' && alternatives) {
+                regex.append('|');
+            } else {
+                if ("\\.[]{}()<>+-=!^$|".indexOf(c) >= 0)
+                    regex.append('\\');
+                regex.append(c);
+            }
+        }
+        return regex.toString();
+    }
+
+}
@@ -0,0 +1,719 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.system.backup;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * An incremental, content-addressed backup store. Every distinct file content
+ * is compressed and stored once under its SHA-256 hash, and each snapshot of a
+ * world is a manifest listing the hash, size and modification time of its
+ * files.
+ *
+ * <p>Files whose size and modification time match the previous snapshot are
+ * not read again, so taking a snapshot of a mostly unchanged world costs
+ * little more than listing its files.</p>
+ *
+ * <p>Anvil region files are stored chunk by chunk: only the chunks whose save
+ * time changed since the previous snapshot are read, and the snapshot refers
+ * to an index of the region's chunks. Restoring rebuilds the region file from
+ * its index, so a world that changed in one chunk costs one chunk.</p>
+ *
+ * <p>Snapshots may be taken and restored at the same time, but the store is
+ * never swept by {@link #collect()} while one is running.</p>
+ */
+public final class SnapshotStore {
+
+    // Headers of the manifests.
+    private static final String HEADER = "# Ember snapshot 2";
+    private static final String LEGACY_HEADER = "# Ember snapshot 1";
+
+    // The size of the copy buffers.
+    private static final int BUFFER = 1 << 16;
+
+    private final Path objects;
+    private final Path snapshots;
+    private final ExecutorService workers;
+    private final int level;
+
+    // Snapshots and restores share the store, collections need it alone.
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * SnapshotStore constructor.
+     *
+     * @param directory the directory of the store.
+     * @param workers the pool hashing and compressing the files.
+     * @param level the DEFLATE compression level of the stored files.
+     */
+    public SnapshotStore(Path directory, ExecutorService workers, int level) {
+        this.objects = directory.resolve("objects");
+        this.snapshots = directory.resolve("snapshots");
+        this.workers = workers;
+        this.level = level;
+    }
+
+    /**
+     * Take a snapshot of a world. Blocks until the snapshot is written, so
+     * this must not be called from the worker pool.
+     *
+     * @param world the world's name.
+     * @param source the world's directory.
+     * @param job the job tracking the progress.
+     * @return the snapshot's identifier.
+     * @throws IOException if the snapshot couldn't be taken.
+     */
+    public String snapshot(String world, Path source, BackupJob<?> job) throws IOException {
+        return this.snapshot(world, source, job, Throttle.NONE);
+    }
+
+    /**
+     * Take a snapshot of a world, limiting the rate at which it's read.
+     * Blocks until the snapshot is written, so this must not be called from
+     * the worker pool.
+     *
+     * @param world the world's name.
+     * @param source the world's directory.
+     * @param job the job tracking the progress.
+     * @param throttle the limit of the rate at which the world is read.
+     * @return the snapshot's identifier.
+     * @throws IOException if the snapshot couldn't be taken.
+     */
+    public String snapshot(String world, Path source, BackupJob<?> job, Throttle throttle) throws IOException {
+        this.lock.readLock().lock();
+        try {
+            return this.take(world, source, job, throttle);
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Take a snapshot while holding the store's read lock.
+     */
+    private String take(String world, Path source, BackupJob<?> job, Throttle throttle) throws IOException {
+        List<String> existing = this.getSnapshots(world);
+        Map<String, Entry> previous = existing.isEmpty() ? Collections.<String, Entry>emptyMap()
+                : this.read(world, existing.get(existing.size() - 1));
+
+        Map<String, Future<Entry>> pending = new LinkedHashMap<String, Future<Entry>>();
+
+        try (Stream<Path> paths = Files.walk(source)) {
+            Iterator<Path> files = paths.filter(Files::isRegularFile).iterator();
+
+            while (files.hasNext()) {
+                Path file = files.next();
+                String name = source.relativize(file).toString().replace('\\', '/');
+                long size = Files.size(file);
+                long modified = Files.getLastModifiedTime(file).toMillis();
+
+                job.found(size);
+
+                // Reuse the previous hash of files that look unchanged.
+                Entry old = previous.get(name);
+                if (old != null && old.size == size && old.modified == modified && Files.exists(this.object(old.hash))) {
+                    pending.put(name, CompletableFuture.completedFuture(old));
+                    job.completed(size);
+                } else if (name.endsWith(".mca")) {
+                    pending.put(name, this.workers.submit(() -> {
+                        Entry entry = this.storeRegion(name, file, modified, (old != null && old.region) ? old : null, throttle);
+                        job.completed(size);
+                        return entry;
+                    }));
+                } else {
+                    pending.put(name, this.workers.submit(() -> {
+                        Entry entry = this.store(name, file, modified, throttle);
+                        job.completed(size);
+                        return entry;
+                    }));
+                }
+            }
+        }
+        job.scanned();
+
+        List<Entry> entries = new ArrayList<Entry>();
+        for (Future<Entry> future : pending.values()) {
+            entries.add(SnapshotStore.get(future));
+        }
+
+        String id = new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(new Date());
+        this.write(world, id, entries);
+        return id;
+    }
+
+    /**
+     * Restore a snapshot into a directory, which must not exist yet. Blocks
+     * until the snapshot is restored, so this must not be called from the
+     * worker pool.
+     *
+     * @param world the world's name.
+     * @param id the snapshot's identifier.
+     * @param destination the directory.
+     * @param job the job tracking the progress.
+     * @throws IOException if the snapshot couldn't be restored.
+     */
+    public void restore(String world, String id, Path destination, BackupJob<?> job) throws IOException {
+        this.lock.readLock().lock();
+        try {
+            this.restoreLocked(world, id, destination, job);
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Restore a snapshot while holding the store's read lock.
+     */
+    private void restoreLocked(String world, String id, Path destination, BackupJob<?> job) throws IOException {
+        if (Files.exists(destination))
+            throw new FileAlreadyExistsException(destination.toString());
+
+        Map<String, Entry> entries = this.read(world, id);
+        List<Future<Void>> pending = new ArrayList<Future<Void>>();
+
+        for (Entry entry : entries.values()) {
+            job.found(entry.size);
+        }
+        job.scanned();
+
+        for (Entry entry : entries.values()) {
+            pending.add(this.workers.submit(() -> {
+                Path file = destination.resolve(entry.name);
+                Files.createDirectories(file.getParent());
+
+                if (entry.region) {
+                    this.restoreRegion(entry, file);
+                    Files.setLastModifiedTime(file, FileTime.fromMillis(entry.modified));
+                    job.completed(entry.size);
+                    return null;
+                }
+
+                Inflater inflater = new Inflater();
+                try (InputStream in = new InflaterInputStream(Files.newInputStream(this.object(entry.hash)), inflater, BUFFER)) {
+                    Files.copy(in, file);
+                } finally {
+                    inflater.end();
+                }
+                Files.setLastModifiedTime(file, FileTime.fromMillis(entry.modified));
+
+                job.completed(entry.size);
+                return null;
+            }));
+        }
+
+        for (Future<Void> future : pending) {
+            SnapshotStore.get(future);
+        }
+    }
+
+    /**
+     * Get the snapshots of a world.
+     *
+     * @param world the world's name.
+     * @return the snapshots' identifiers, oldest first.
+     * @throws IOException if the snapshots couldn't be listed.
+     */
+    public List<String> getSnapshots(String world) throws IOException {
+        Path directory = this.snapshots.resolve(world);
+        List<String> ids = new ArrayList<String>();
+
+        if (Files.isDirectory(directory)) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.snapshot")) {
+                for (Path path : stream) {
+                    String name = path.getFileName().toString();
+                    ids.add(name.substring(0, name.length() - ".snapshot".length()));
+                }
+            }
+        }
+
+        Collections.sort(ids);
+        return ids;
+    }
+
+    /**
+     * Delete a snapshot. The stored files it used are only removed by
+     * {@link #collect()}.
+     *
+     * @param world the world's name.
+     * @param id the snapshot's identifier.
+     * @return true if the snapshot existed.
+     * @throws IOException if the snapshot couldn't be deleted.
+     */
+    public boolean delete(String world, String id) throws IOException {
+        return Files.deleteIfExists(this.manifest(world, id));
+    }
+
+    /**
+     * Remove every stored file that isn't used by any snapshot. Waits for the
+     * snapshots and restores in progress, and holds new ones back until the
+     * store is swept.
+     *
+     * @return the number of bytes freed.
+     * @throws IOException if the store couldn't be cleaned up.
+     */
+    public long collect() throws IOException {
+        this.lock.writeLock().lock();
+        try {
+            return this.sweep();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Sweep the store while holding its write lock.
+     */
+    private long sweep() throws IOException {
+        long start = System.currentTimeMillis();
+        Set<String> used = new HashSet<String>();
+
+        if (Files.isDirectory(this.snapshots)) {
+            try (DirectoryStream<Path> worlds = Files.newDirectoryStream(this.snapshots)) {
+                for (Path world : worlds) {
+                    for (String id : this.getSnapshots(world.getFileName().toString())) {
+                        for (Entry entry : this.read(world.getFileName().toString(), id).values()) {
+                            // Region files also use the objects of their chunks.
+                            if (used.add(entry.hash) && entry.region) {
+                                for (byte[] hash : RegionIndex.fromBytes(this.load(entry.hash)).hashes) {
+                                    if (hash != null)
+                                        used.add(SnapshotStore.hex(hash));
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        long freed = 0;
+        if (Files.isDirectory(this.objects)) {
+            try (Stream<Path> paths = Files.walk(this.objects)) {
+                Iterator<Path> files = paths.filter(Files::isRegularFile).iterator();
+                while (files.hasNext()) {
+                    Path file = files.next();
+                    String hash = file.getParent().getFileName().toString() + file.getFileName().toString();
+
+                    // Leave temporary files and anything stored since the sweep began.
+                    if (file.getFileName().toString().endsWith(".tmp") || Files.getLastModifiedTime(file).toMillis() >= start)
+                        continue;
+
+                    if (!used.contains(hash)) {
+                        freed += Files.size(file);
+                        Files.delete(file);
+                    }
+                }
+            }
+        }
+        return freed;
+    }
+
+    /**
+     * Hash a file and store its content if it isn't stored yet. The file is
+     * hashed and compressed in a single pass.
+     *
+     * @param name the file's name within the world.
+     * @param file the file.
+     * @param modified the file's modification time.
+     * @param throttle the limit of the rate at which the file is read.
+     * @return the file's manifest entry.
+     * @throws IOException if the file couldn't be stored.
+     */
+    private Entry store(String name, Path file, long modified, Throttle throttle) throws IOException {
+        MessageDigest digest = SnapshotStore.sha256();
+        Files.createDirectories(this.objects);
+        Path temporary = Files.createTempFile(this.objects, "object", ".tmp");
+
+        try {
+            long size = 0;
+            Deflater deflater = new Deflater(this.level);
+
+            try (InputStream in = Files.newInputStream(file);
+                 OutputStream out = new DeflaterOutputStream(Files.newOutputStream(temporary), deflater, BUFFER)) {
+                byte[] buffer = new byte[BUFFER];
+                int length;
+                while ((length = in.read(buffer)) > 0) {
+                    throttle.acquire(length);
+                    digest.update(buffer, 0, length);
+                    out.write(buffer, 0, length);
+                    size += length;
+                }
+            } finally {
+                deflater.end();
+            }
+
+            String hash = SnapshotStore.hex(digest.digest());
+            Path object = this.object(hash);
+
+            if (!Files.exists(object)) {
+                Files.createDirectories(object.getParent());
+                Files.move(temporary, object, StandardCopyOption.ATOMIC_MOVE);
+            }
+            return new Entry(name, hash, size, modified, false);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Store a region file chunk by chunk. Chunks saved at the same time and
+     * place as in the previous snapshot, in an earlier second than the
+     * previous copy was written, are not read. Falls back to storing
+     * the whole file if it isn't a valid region file.
+     *
+     * @param name the file's name within the world.
+     * @param file the region file.
+     * @param modified the file's modification time.
+     * @param old the file's entry in the previous snapshot, if it was stored
+     *        as a region.
+     * @param throttle the limit of the rate at which the file is read.
+     * @return the file's manifest entry.
+     * @throws IOException if the file couldn't be stored.
+     */
+    private Entry storeRegion(String name, Path file, long modified, Entry old, Throttle throttle) throws IOException {
+        long size;
+        RegionIndex index;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            size = channel.size();
+
+            throttle.acquire(RegionIndex.HEADER);
+            try {
+                index = RegionIndex.read(channel);
+            } catch (IOException e) {
+                return this.store(name, file, modified, throttle);
+            }
+
+            RegionIndex previous = (old == null) ? null : RegionIndex.fromBytes(this.load(old.hash));
+
+            for (int i = 0; i < RegionIndex.CHUNKS; i++) {
+                if (index.locations[i] == 0)
+                    continue;
+
+                if (previous != null && index.unchanged(previous, i, old.modified)) {
+                    index.hashes[i] = previous.hashes[i];
+                } else {
+                    byte[] record;
+                    try {
+                        record = index.chunk(channel, i);
+                    } catch (IOException e) {
+                        return this.store(name, file, modified, throttle);
+                    }
+                    throttle.acquire(record.length);
+
+                    // Chunks are already compressed, so they are stored as is.
+                    index.hashes[i] = this.put(record, Deflater.NO_COMPRESSION);
+                }
+            }
+        }
+
+        byte[] hash = this.put(index.toBytes(), this.level);
+        return new Entry(name, SnapshotStore.hex(hash), size, modified, true);
+    }
+
+    /**
+     * Rebuild a region file from its index. The chunks are packed one after
+     * the other, in the order of the index.
+     *
+     * @param entry the region file's manifest entry.
+     * @param file the region file.
+     * @throws IOException if the region file couldn't be rebuilt.
+     */
+    private void restoreRegion(Entry entry, Path file) throws IOException {
+        RegionIndex index = RegionIndex.fromBytes(this.load(entry.hash));
+        ByteBuffer header = ByteBuffer.allocate(RegionIndex.HEADER);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long sector = RegionIndex.HEADER / RegionIndex.SECTOR;
+
+            for (int i = 0; i < RegionIndex.CHUNKS; i++) {
+                header.putInt(RegionIndex.SECTOR + i * 4, index.timestamps[i]);
+                if (index.hashes[i] == null)
+                    continue;
+
+                byte[] record = this.load(SnapshotStore.hex(index.hashes[i]));
+                int sectors = (record.length + RegionIndex.SECTOR - 1) / RegionIndex.SECTOR;
+
+                // The header can't hold a larger sector count. Such chunks are
+                // never stored on their own, their region is stored whole.
+                if (sectors > RegionIndex.MAX_SECTORS)
+                    throw new IOException("Chunk " + i + " of " + entry.name + " spans " + sectors + " sectors");
+
+                // Pad the chunk to whole sectors.
+                ByteBuffer data = ByteBuffer.wrap(Arrays.copyOf(record, sectors * RegionIndex.SECTOR));
+                while (data.hasRemaining()) {
+                    channel.write(data, sector * RegionIndex.SECTOR + data.position());
+                }
+
+                header.putInt(i * 4, (int) (sector << 8) | sectors);
+                sector += sectors;
+            }
+
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        }
+    }
+
+    /**
+     * Store a block of data if it isn't stored yet.
+     *
+     * @param data the data.
+     * @param level the DEFLATE compression level.
+     * @return the data's hash.
+     * @throws IOException if the data couldn't be stored.
+     */
+    private byte[] put(byte[] data, int level) throws IOException {
+        byte[] hash = SnapshotStore.sha256().digest(data);
+        Path object = this.object(SnapshotStore.hex(hash));
+
+        if (!Files.exists(object)) {
+            Files.createDirectories(object.getParent());
+            Path temporary = Files.createTempFile(object.getParent(), "object", ".tmp");
+            Deflater deflater = new Deflater(level);
+
+            try {
+                try (OutputStream out = new DeflaterOutputStream(Files.newOutputStream(temporary), deflater, BUFFER)) {
+                    out.write(data);
+                }
+                Files.move(temporary, object, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                deflater.end();
+                Files.deleteIfExists(temporary);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Load a stored block of data.
+     *
+     * @param hash the data's hash.
+     * @return the data.
+     * @throws IOException if the data couldn't be loaded.
+     */
+    private byte[] load(String hash) throws IOException {
+        Inflater inflater = new Inflater();
+        try (InputStream in = new InflaterInputStream(Files.newInputStream(this.object(hash)), inflater, BUFFER)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[BUFFER];
+            int length;
+            while ((length = in.read(buffer)) > 0) {
+                out.write(buffer, 0, length);
+            }
+            return out.toByteArray();
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Read a snapshot's manifest.
+     *
+     * @param world the world's name.
+     * @param id the snapshot's identifier.
+     * @return the entries by file name.
+     * @throws IOException if the manifest couldn't be read.
+     */
+    public Map<String, Entry> read(String world, String id) throws IOException {
+        Map<String, Entry> entries = new LinkedHashMap<String, Entry>();
+
+        try (BufferedReader reader = Files.newBufferedReader(this.manifest(world, id), StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            boolean legacy = LEGACY_HEADER.equals(header);
+            if (!legacy && !HEADER.equals(header))
+                throw new IOException("Invalid snapshot manifest " + id);
+
+            // Version 1 manifests have no kind column.
+            String line;
+            int count = legacy ? 4 : 5;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", count);
+                if (fields.length != count)
+                    throw new IOException("Invalid snapshot manifest line: " + line);
+
+                String[] f = legacy ? new String[] { "f", fields[0], fields[1], fields[2], fields[3] } : fields;
+                entries.put(f[4], new Entry(f[4], f[1], Long.parseLong(f[2]), Long.parseLong(f[3]), "r".equals(f[0])));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Write a snapshot's manifest atomically.
+     */
+    private void write(String world, String id, List<Entry> entries) throws IOException {
+        Path manifest = this.manifest(world, id);
+        Files.createDirectories(manifest.getParent());
+        Path temporary = Files.createTempFile(manifest.getParent(), id, ".tmp");
+
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                writer.write(HEADER);
+                writer.newLine();
+                for (Entry entry : entries) {
+                    writer.write((entry.region ? "r" : "f") + "\t" + entry.hash + "\t" + entry.size + "\t" + entry.modified + "\t" + entry.name);
+                    writer.newLine();
+                }
+            }
+            Files.move(temporary, manifest, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private Path manifest(String world, String id) {
+        return this.snapshots.resolve(world).resolve(id + ".snapshot");
+    }
+
+    private Path object(String hash) {
+        return this.objects.resolve(hash.substring(0, 2)).resolve(hash.substring(2));
+    }
+
+    private static <T> T get(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while processing the snapshot.", e);
+        } catch (ExecutionException e) {
+            throw (e.getCause() instanceof IOException) ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * A file of a snapshot.
+     */
+    public static final class Entry {
+
+        private final String name;
+        private final String hash;
+        private final long size;
+        private final long modified;
+        private final boolean region;
+
+        private Entry(String name, String hash, long size, long modified, boolean region) {
+            this.name = name;
+            this.hash = hash;
+            this.size = size;
+            this.modified = modified;
+            this.region = region;
+        }
+
+        /**
+         * @return the file's name within the world.
+         */
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * @return the SHA-256 hash of the file's content, or of its chunk
+         *         index if it's a region file.
+         */
+        public String getHash() {
+            return this.hash;
+        }
+
+        /**
+         * @return the file's size.
+         */
+        public long getSize() {
+            return this.size;
+        }
+
+        /**
+         * @return the file's modification time in milliseconds.
+         */
+        public long getModified() {
+            return this.modified;
+        }
+
+        /**
+         * @return true if the file is stored as a region file.
+         */
+        public boolean isRegion() {
+            return this.region;
+        }
+
+    }
+
+}
@@ -0,0 +1,124 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.system.backup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Pristine, uncompressed copies of worlds that other worlds can be reset
+ * from, such as arena maps between rounds.
+ *
+ * <p>Where the file system supports copy-on-write clones (reflinks), a reset
+ * clones the whole template and swaps it in place, which costs about as much
+ * as listing the files. Elsewhere, a reset copies in parallel only the files
+ * whose size or modification time differ from the template, and deletes the
+ * ones the template doesn't have.</p>
+ *
+ * <p>Templates are never hardlinked: the server rewrites region files in
+ * place, which would change the template through the link.</p>
+ */
+public final class TemplateStore {
+
+    private final Path directory;
+    private final ExecutorService workers;
+
+    /**
+     * TemplateStore constructor.
+     *
+     * @param directory the directory of the templates.
+     * @param workers the pool copying the files.
+     */
+    public TemplateStore(Path directory, ExecutorService workers) {
+        this.directory = directory;
+        this.workers = workers;
+    }
+
+    /**
+     * Check whether a template exists.
+     *
+     * @param name the template's name.
+     * @return true if the template exists.
+     */
+    public boolean exists(String name) {
+        return Files.isDirectory(this.directory.resolve(name));
+    }
+
+    /**
+     * Save a world as a template, replacing any template of the same name.
+     * Blocks until the template is saved, so this must not be called from
+     * the worker pool.
+     *
+     * @param name the template's name.
+     * @param source the world's directory.
+     * @param job the job tracking the progress.
+     * @throws IOException if the template couldn't be saved.
+     */
+    public void save(String name, Path source, BackupJob<?> job) throws IOException {
+        Path template = this.directory.resolve(name);
+        Files.createDirectories(this.directory);
+
+        Path staging = FileTree.sibling(template, "template");
+        try {
+            if (!FileTree.clone(source, staging)) {
+                FileTree.mirror(source, staging, this.workers, job);
+            }
+            FileTree.swap(staging, template, true);
+        } finally {
+            FileTree.delete(staging);
+        }
+    }
+
+    /**
+     * Reset a world from a template. Blocks until the world is reset, so this
+     * must not be called from the worker pool.
+     *
+     * @param name the template's name.
+     * @param world the world's directory.
+     * @param job the job tracking the progress.
+     * @throws IOException if the world couldn't be reset.
+     */
+    public void reset(String name, Path world, BackupJob<?> job) throws IOException {
+        Path template = this.directory.resolve(name);
+        if (!Files.isDirectory(template))
+            throw new NoSuchFileException(template.toString());
+
+        Path staging = FileTree.sibling(world, "reset");
+        try {
+            if (FileTree.clone(template, staging)) {
+                FileTree.swap(staging, world, true);
+                job.scanned();
+                return;
+            }
+        } finally {
+            FileTree.delete(staging);
+        }
+
+        FileTree.mirror(template, world, this.workers, job);
+    }
+
+}
@@ -0,0 +1,104 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.system.backup;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the rate of backup I/O, so that backups don't starve the server's
+ * own disk access. Threads may burst up to one second worth of bytes, and
+ * then wait for their share.
+ */
+public final class Throttle {
+
+    /**
+     * A throttle that never waits.
+     */
+    public static final Throttle NONE = new Throttle(Long.MAX_VALUE);
+
+    // The number of bytes allowed per second.
+    private final long rate;
+
+    // The bytes that may be used right away, negative when in debt.
+    private long available;
+
+    // The last time the available bytes were refilled.
+    private long refilled;
+
+    /**
+     * Throttle constructor.
+     *
+     * @param bytesPerSecond the number of bytes allowed per second.
+     */
+    public Throttle(long bytesPerSecond) {
+        if (bytesPerSecond <= 0)
+            throw new IllegalArgumentException("The rate must be positive");
+
+        this.rate = bytesPerSecond;
+        this.available = bytesPerSecond;
+        this.refilled = System.nanoTime();
+    }
+
+    /**
+     * @return the number of bytes allowed per second.
+     */
+    public long getRate() {
+        return this.rate;
+    }
+
+    /**
+     * Use some bytes, waiting if the rate was exceeded.
+     *
+     * @param bytes the number of bytes.
+     * @throws InterruptedIOException if interrupted while waiting.
+     */
+    public void acquire(long bytes) throws InterruptedIOException {
+        if (this == NONE || bytes <= 0)
+            return;
+
+        long wait;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long refill = (long) ((now - this.refilled) / 1e9 * this.rate);
+
+            this.available = Math.min(this.rate, this.available + refill);
+            this.refilled = now;
+            this.available -= bytes;
+
+            // Pay back the debt before going on.
+            wait = (this.available < 0) ? (long) (-this.available * 1e9 / this.rate) : 0;
+        }
+
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while throttled");
+            }
+        }
+    }
+
+}
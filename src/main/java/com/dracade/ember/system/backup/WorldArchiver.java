@@ -0,0 +1,540 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.system.backup;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Archives a world directory into a ZIP file, or into an Ember archive using
+ * any {@link Compression}. Files are read and compressed in parallel on a
+ * worker pool, and written to the archive in the order they were found as
+ * soon as they're ready. Only a bounded number of files, or blocks for Ember
+ * archives, are held in memory at once. Both formats return a manifest of
+ * the archived files.
+ */
+public final class WorldArchiver {
+
+    // The size of the archive's write buffer.
+    private static final int BUFFER = 1 << 20;
+
+    private final ExecutorService workers;
+    private final int window;
+
+    /**
+     * WorldArchiver constructor.
+     *
+     * @param workers the pool compressing the files.
+     * @param threads the number of threads in the pool.
+     */
+    public WorldArchiver(ExecutorService workers, int threads) {
+        this.workers = workers;
+        this.window = threads * 2;
+    }
+
+    /**
+     * Archive a directory. Blocks until the archive is written, so this must
+     * not be called from the worker pool.
+     *
+     * @param source the directory.
+     * @param destination the archive.
+     * @param level the DEFLATE compression level, from 0 to 9.
+     * @param job the job tracking the progress.
+     * @return the manifest of the archive.
+     * @throws IOException if the directory couldn't be archived.
+     */
+    public BackupManifest archive(Path source, File destination, int level, BackupJob<?> job) throws IOException {
+        Queue<Future<Compressed>> pending = new ArrayDeque<Future<Compressed>>();
+        BackupManifest manifest = new BackupManifest();
+
+        try (Stream<Path> paths = Files.walk(source); ZipWriter zip = new ZipWriter(new FileOutputStream(destination), BUFFER)) {
+            Iterator<Path> files = paths.filter(Files::isRegularFile).iterator();
+
+            while (files.hasNext()) {
+                Path file = files.next();
+                String name = source.relativize(file).toString().replace(File.separatorChar, '/');
+
+                job.found(Files.size(file));
+                pending.add(this.workers.submit(() -> WorldArchiver.compress(file, name, level)));
+
+                // Write the oldest file once enough are in flight.
+                if (pending.size() >= this.window) {
+                    WorldArchiver.write(zip, pending.remove(), manifest, job);
+                }
+            }
+            job.scanned();
+
+            while (!pending.isEmpty()) {
+                WorldArchiver.write(zip, pending.remove(), manifest, job);
+            }
+        } finally {
+            for (Future<Compressed> future : pending) {
+                future.cancel(true);
+            }
+        }
+        return manifest;
+    }
+
+    /**
+     * Archive a directory into an Ember archive. Blocks until the archive is
+     * written, so this must not be called from the worker pool.
+     *
+     * @param source the directory.
+     * @param destination the archive.
+     * @param compression the codec of the blocks.
+     * @param job the job tracking the progress.
+     * @return the manifest of the archive.
+     * @throws IOException if the directory couldn't be archived.
+     */
+    public BackupManifest archive(Path source, File destination, Compression compression, BackupJob<?> job) throws IOException {
+        return this.archive(source, destination, compression, null, job);
+    }
+
+    /**
+     * Archive a directory into an Ember archive, copying the files that are
+     * unchanged since a previous archive instead of compressing them again.
+     * A file is unchanged if it still has the size and modification time in
+     * the previous archive's manifest, and its blocks are verified before
+     * they're copied. Blocks until the archive is written, so this must not
+     * be called from the worker pool.
+     *
+     * @param source the directory.
+     * @param destination the archive.
+     * @param compression the codec of the blocks.
+     * @param previous the previous archive of the directory, or null.
+     * @param job the job tracking the progress.
+     * @return the manifest of the archive.
+     * @throws IOException if the directory couldn't be archived.
+     */
+    public BackupManifest archive(Path source, File destination, Compression compression, File previous, BackupJob<?> job) throws IOException {
+        Queue<Future<Block>> pending = new ArrayDeque<Future<Block>>();
+        BackupManifest manifest = new BackupManifest();
+
+        try (Stream<Path> paths = Files.walk(source);
+             Previous last = Previous.open(previous);
+             Sink sink = new Sink(new ArchiveWriter(new FileOutputStream(destination), BUFFER), compression, manifest, job)) {
+            Iterator<Path> files = paths.filter(Files::isRegularFile).iterator();
+
+            while (files.hasNext()) {
+                Path file = files.next();
+                String name = source.relativize(file).toString().replace(File.separatorChar, '/');
+                long size = Files.size(file);
+                long modified = Files.getLastModifiedTime(file).toMillis();
+                job.found(size);
+
+                Optional<ArchiveReader.Entry> unchanged = last.find(name, size, modified);
+                if (unchanged.isPresent()) {
+                    int checksum = last.checksum(name);
+                    pending.add(this.workers.submit(() -> WorldArchiver.copy(last.reader, unchanged.get(), file, checksum)));
+
+                    if (pending.size() >= this.window) {
+                        sink.write(WorldArchiver.get(pending.remove()));
+                    }
+                    continue;
+                }
+
+                // Files are split into blocks compressed independently.
+                int blocks = WorldArchiver.blocks(size);
+                for (int i = 0; i < blocks; i++) {
+                    int index = i;
+                    pending.add(this.workers.submit(() -> WorldArchiver.compress(file, name, modified, size, index, compression)));
+
+                    // Write the oldest block once enough are in flight.
+                    if (pending.size() >= this.window) {
+                        sink.write(WorldArchiver.get(pending.remove()));
+                    }
+                }
+            }
+            job.scanned();
+
+            while (!pending.isEmpty()) {
+                sink.write(WorldArchiver.get(pending.remove()));
+            }
+        } finally {
+            for (Future<Block> future : pending) {
+                future.cancel(true);
+            }
+        }
+        return manifest;
+    }
+
+    /**
+     * @return the number of blocks of a file, at least one.
+     */
+    private static int blocks(long size) {
+        return (int) Math.max(1, (size + ArchiveWriter.BLOCK - 1) / ArchiveWriter.BLOCK);
+    }
+
+    /**
+     * Read and compress a block of a file.
+     *
+     * @param file the file.
+     * @param name the file's name in the archive.
+     * @param modified the file's modification time.
+     * @param size the file's size when it was found.
+     * @param index the block's index in the file.
+     * @param compression the codec of the block.
+     * @return the compressed block.
+     * @throws IOException if the file couldn't be read.
+     */
+    private static Block compress(Path file, String name, long modified, long size, int index, Compression compression) throws IOException {
+        long offset = (long) index * ArchiveWriter.BLOCK;
+        byte[] data = new byte[(int) Math.max(0, Math.min(ArchiveWriter.BLOCK, size - offset))];
+        int length = 0;
+
+        // The file may have shrunk since it was found.
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) < 0)
+                    break;
+            }
+            length = buffer.position();
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, length);
+        int checksum = Crc32c.of(data, 0, length);
+        boolean first = index == 0;
+        boolean last = index == WorldArchiver.blocks(size) - 1;
+
+        // Keep the compressed block only if it's smaller.
+        byte[] out = new byte[length];
+        int compressed = (length > 0) ? compression.compress(data, length, out) : -1;
+
+        return (compressed >= 0)
+                ? new Block(name, modified, first, last, length, (int) crc.getValue(), checksum, out, compressed)
+                : new Block(name, modified, first, last, length, (int) crc.getValue(), checksum, data, length);
+    }
+
+    /**
+     * Read an unchanged file's blocks from the previous archive.
+     *
+     * @param reader the previous archive.
+     * @param entry the file's entry in the previous archive.
+     * @param file the file, compressed again if the entry is corrupted.
+     * @param checksum the file's CRC-32C.
+     * @return the stored blocks.
+     * @throws IOException if the previous archive couldn't be read.
+     */
+    private static Block copy(ArchiveReader reader, ArchiveReader.Entry entry, Path file, int checksum) throws IOException {
+        try {
+            reader.verify(entry);
+        } catch (IOException e) {
+            // Never carry a corrupted entry over to the new archive.
+            return new Block(entry, file, checksum, null);
+        }
+        return new Block(entry, file, checksum, reader.raw(entry));
+    }
+
+    /**
+     * Wait for a compressed file and write it to the archive.
+     */
+    private static void write(ZipWriter zip, Future<Compressed> future, BackupManifest manifest, BackupJob<?> job) throws IOException {
+        Compressed file = WorldArchiver.get(future);
+        zip.write(file.name, file.modified, file.method, file.crc, file.size, file.data, file.length);
+        manifest.add(file.name, file.size, file.modified, file.checksum);
+        job.completed(file.size);
+    }
+
+    /**
+     * Read and compress a file.
+     *
+     * @param file the file.
+     * @param name the file's name in the archive.
+     * @param level the DEFLATE compression level.
+     * @return the compressed file.
+     * @throws IOException if the file couldn't be read.
+     */
+    private static Compressed compress(Path file, String name, int level) throws IOException {
+        long modified = Files.getLastModifiedTime(file).toMillis();
+        byte[] data = Files.readAllBytes(file);
+
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length);
+        int checksum = Crc32c.of(data, 0, data.length);
+
+        if (level != Deflater.NO_COMPRESSION) {
+            Deflater deflater = new Deflater(level, true);
+            try {
+                deflater.setInput(data);
+                deflater.finish();
+
+                // Keep the compressed data only if it's smaller.
+                byte[] out = new byte[data.length];
+                int length = 0;
+                while (!deflater.finished() && length < out.length) {
+                    length += deflater.deflate(out, length, out.length - length);
+                }
+
+                if (deflater.finished() && length < data.length) {
+                    return new Compressed(name, modified, ZipWriter.DEFLATED, crc.getValue(), checksum, data.length, out, length);
+                }
+            } finally {
+                deflater.end();
+            }
+        }
+        return new Compressed(name, modified, ZipWriter.STORED, crc.getValue(), checksum, data.length, data, data.length);
+    }
+
+    private static <T> T get(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while archiving.", e);
+        } catch (ExecutionException e) {
+            throw (e.getCause() instanceof IOException) ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * A compressed file waiting to be written.
+     */
+    private static final class Compressed {
+
+        private final String name;
+        private final long modified;
+        private final int method;
+        private final long crc;
+        private final int checksum;
+        private final long size;
+        private final byte[] data;
+        private final int length;
+
+        private Compressed(String name, long modified, int method, long crc, int checksum, long size, byte[] data, int length) {
+            this.name = name;
+            this.modified = modified;
+            this.method = method;
+            this.crc = crc;
+            this.checksum = checksum;
+            this.size = size;
+            this.data = data;
+            this.length = length;
+        }
+
+    }
+
+    /**
+     * A compressed block waiting to be written, or an unchanged file copied
+     * from the previous archive.
+     */
+    private static final class Block {
+
+        private final String name;
+        private final long modified;
+        private final boolean first;
+        private final boolean last;
+        private final int size;
+        private final int crc;
+        private final int checksum;
+        private final byte[] data;
+        private final int length;
+
+        // Only set for copied files.
+        private final ArchiveReader.Entry copied;
+        private final Path file;
+
+        private Block(String name, long modified, boolean first, boolean last, int size, int crc, int checksum, byte[] data, int length) {
+            this.name = name;
+            this.modified = modified;
+            this.first = first;
+            this.last = last;
+            this.size = size;
+            this.crc = crc;
+            this.checksum = checksum;
+            this.data = data;
+            this.length = length;
+            this.copied = null;
+            this.file = null;
+        }
+
+        private Block(ArchiveReader.Entry copied, Path file, int checksum, byte[] data) {
+            this.name = copied.getName();
+            this.modified = copied.getModified();
+            this.first = true;
+            this.last = true;
+            this.size = 0;
+            this.crc = 0;
+            this.checksum = checksum;
+            this.data = data;
+            this.length = (data != null) ? data.length : 0;
+            this.copied = copied;
+            this.file = file;
+        }
+
+    }
+
+    /**
+     * Writes blocks to an Ember archive in order, and records each file in
+     * the manifest once its last block is written.
+     */
+    private static final class Sink implements Closeable {
+
+        private final ArchiveWriter archive;
+        private final Compression compression;
+        private final BackupManifest manifest;
+        private final BackupJob<?> job;
+
+        // The size and CRC-32C of the current file so far.
+        private long size;
+        private int checksum;
+
+        private Sink(ArchiveWriter archive, Compression compression, BackupManifest manifest, BackupJob<?> job) {
+            this.archive = archive;
+            this.compression = compression;
+            this.manifest = manifest;
+            this.job = job;
+        }
+
+        private void write(Block block) throws IOException {
+            if (block.copied != null) {
+                this.copy(block);
+                return;
+            }
+
+            if (block.first) {
+                this.archive.begin(block.name, block.modified, this.compression);
+                this.size = 0;
+                this.checksum = 0;
+            }
+            if (block.size > 0) {
+                this.archive.block(block.size, block.crc, block.data, block.length);
+                this.checksum = Crc32c.combine(this.checksum, block.checksum, block.size);
+                this.size += block.size;
+            }
+            if (block.last) {
+                this.archive.end();
+                this.manifest.add(block.name, this.size, block.modified, this.checksum);
+            }
+
+            this.job.completed(block.size);
+        }
+
+        private void copy(Block block) throws IOException {
+            long size = block.copied.getSize();
+
+            // The previous entry is corrupted, compress the file here instead.
+            if (block.data == null) {
+                for (int i = 0; i < WorldArchiver.blocks(size); i++) {
+                    this.write(WorldArchiver.compress(block.file, block.name, block.modified, size, i, this.compression));
+                }
+                return;
+            }
+
+            this.archive.copy(block.copied, block.data);
+            this.manifest.add(block.name, size, block.modified, block.checksum);
+            this.job.completed(size);
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.archive.close();
+        }
+
+    }
+
+    /**
+     * The previous archive of a directory, and its manifest.
+     */
+    private static final class Previous implements Closeable {
+
+        private final ArchiveReader reader;
+        private final BackupManifest manifest;
+
+        private Previous(ArchiveReader reader, BackupManifest manifest) {
+            this.reader = reader;
+            this.manifest = manifest;
+        }
+
+        /**
+         * Open a previous archive, if it has a manifest written for it.
+         *
+         * @param archive the archive, or null.
+         * @return the previous archive, with no files if it can't be used.
+         */
+        private static Previous open(File archive) {
+            if (archive == null || !archive.exists())
+                return new Previous(null, null);
+
+            try {
+                Optional<BackupManifest> manifest = BackupManifest.read(archive);
+                if (manifest.isPresent() && manifest.get().describes(archive))
+                    return new Previous(new ArchiveReader(archive.toPath()), manifest.get());
+            } catch (IOException e) {
+                // Compress every file again.
+            }
+            return new Previous(null, null);
+        }
+
+        /**
+         * Find an unchanged file.
+         *
+         * @param name the file's name in the archive.
+         * @param size the file's size.
+         * @param modified the file's modification time in milliseconds.
+         * @return the file's entry wrapped in an Optional, empty if the file
+         *         changed or isn't in the previous archive.
+         */
+        private Optional<ArchiveReader.Entry> find(String name, long size, long modified) {
+            if (this.reader == null)
+                return Optional.empty();
+
+            Optional<BackupManifest.Entry> entry = this.manifest.getEntry(name);
+            if (!entry.isPresent() || !entry.get().matches(size, modified))
+                return Optional.empty();
+
+            return this.reader.getEntry(name).filter(e -> e.getSize() == size && e.getModified() == modified);
+        }
+
+        private int checksum(String name) {
+            return this.manifest.getEntry(name).get().getChecksum();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (this.reader != null)
+                this.reader.close();
+        }
+
+    }
+
+}
@@ -0,0 +1,336 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.system.backup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Restores a world from a ZIP or Ember archive. Entries are extracted in
+ * parallel on a worker pool into a staging directory next to the
+ * destination, verified against their CRC-32, and the staging directory is
+ * then swapped in place. A failed restore leaves the destination untouched.
+ */
+public final class WorldRestorer {
+
+    // The size of each channel transfer.
+    private static final long TRANSFER = 1 << 20;
+
+    private final ExecutorService workers;
+    private final int threads;
+
+    /**
+     * WorldRestorer constructor.
+     *
+     * @param workers the pool extracting the entries.
+     * @param threads the number of threads in the pool.
+     */
+    public WorldRestorer(ExecutorService workers, int threads) {
+        this.workers = workers;
+        this.threads = threads;
+    }
+
+    /**
+     * Restore an archive, either a ZIP file or an Ember archive. Blocks until
+     * the archive is restored, so this must not be called from the worker
+     * pool.
+     *
+     * @param archive the archive.
+     * @param destination the directory to restore into.
+     * @param overwrite whether an existing destination may be replaced.
+     * @param job the job tracking the progress.
+     * @throws IOException if the archive couldn't be restored.
+     */
+    public void restore(File archive, Path destination, boolean overwrite, BackupJob<?> job) throws IOException {
+        Path staging = FileTree.sibling(destination, "restore");
+        Files.createDirectories(staging);
+
+        try {
+            if (archive.getName().endsWith(ArchiveReader.EXTENSION)) {
+                try (ArchiveReader reader = new ArchiveReader(archive.toPath())) {
+                    this.extract(reader, reader.getEntries(), staging, job);
+                }
+            } else {
+                this.extractZip(archive, staging, name -> true, job);
+            }
+
+            FileTree.swap(staging, destination, overwrite);
+        } finally {
+            FileTree.delete(staging);
+        }
+    }
+
+    /**
+     * Restore some files of an archive into an existing directory, replacing
+     * the files already there. Only the archive's index is read to find the
+     * files, and the selected files are extracted and verified in a staging
+     * directory before being moved in place one by one. Blocks until the
+     * files are restored, so this must not be called from the worker pool.
+     *
+     * @param archive the archive.
+     * @param destination the directory to restore into.
+     * @param selection the files to restore.
+     * @param job the job tracking the progress.
+     * @return the names of the restored files.
+     * @throws IOException if the files couldn't be restored.
+     */
+    public List<String> restore(File archive, Path destination, Predicate<String> selection, BackupJob<?> job) throws IOException {
+        Path staging = FileTree.sibling(destination, "restore");
+        Files.createDirectories(staging);
+
+        try {
+            List<String> names = new ArrayList<String>();
+
+            if (archive.getName().endsWith(ArchiveReader.EXTENSION)) {
+                try (ArchiveReader reader = new ArchiveReader(archive.toPath())) {
+                    List<ArchiveReader.Entry> entries = new ArrayList<ArchiveReader.Entry>();
+                    for (ArchiveReader.Entry entry : reader.getEntries()) {
+                        if (selection.test(entry.getName())) {
+                            entries.add(entry);
+                            names.add(entry.getName());
+                        }
+                    }
+                    this.extract(reader, entries, staging, job);
+                }
+            } else {
+                names.addAll(this.extractZip(archive, staging, selection, job));
+            }
+
+            // Every file was verified, move them in place.
+            for (String name : names) {
+                Path file = WorldRestorer.resolve(destination, name);
+                Files.createDirectories(file.getParent());
+                Files.move(WorldRestorer.resolve(staging, name), file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            return names;
+        } finally {
+            FileTree.delete(staging);
+        }
+    }
+
+    /**
+     * Extract entries of an Ember archive in parallel. Blocks until the
+     * entries are extracted.
+     *
+     * @param reader the archive.
+     * @param entries the entries to extract.
+     * @param directory the directory to extract into, where the entries must
+     *        not exist yet.
+     * @param job the job tracking the progress.
+     * @throws IOException if an entry couldn't be extracted.
+     */
+    void extract(ArchiveReader reader, Collection<ArchiveReader.Entry> entries, Path directory, BackupJob<?> job) throws IOException {
+        for (ArchiveReader.Entry entry : entries) {
+            job.found(entry.getSize());
+        }
+        job.scanned();
+
+        // The reader is shared, its reads don't depend on each other.
+        List<Future<Void>> pending = new ArrayList<Future<Void>>();
+        for (List<ArchiveReader.Entry> batch : this.balance(entries, ArchiveReader.Entry::getSize)) {
+            pending.add(this.workers.submit(() -> {
+                for (ArchiveReader.Entry entry : batch) {
+                    Path file = WorldRestorer.resolve(directory, entry.getName());
+                    Files.createDirectories(file.getParent());
+                    reader.extract(entry, file);
+                    job.completed(entry.getSize());
+                }
+                return null;
+            }));
+        }
+        WorldRestorer.await(pending);
+    }
+
+    /**
+     * Extract the selected files of a ZIP file in parallel, using its central
+     * directory. Blocks until the files are extracted.
+     *
+     * @return the names of the extracted files.
+     */
+    private List<String> extractZip(File archive, Path directory, Predicate<String> selection, BackupJob<?> job) throws IOException {
+        List<ZipEntry> entries = new ArrayList<ZipEntry>();
+        List<String> names = new ArrayList<String>();
+
+        try (ZipFile zip = new ZipFile(archive)) {
+            for (Enumeration<? extends ZipEntry> e = zip.entries(); e.hasMoreElements();) {
+                ZipEntry entry = e.nextElement();
+                if (!selection.test(entry.getName()))
+                    continue;
+
+                entries.add(entry);
+                job.found(Math.max(0, entry.getSize()));
+                if (!entry.isDirectory())
+                    names.add(entry.getName());
+            }
+        }
+        job.scanned();
+
+        // Each batch reads through its own handle on the archive.
+        List<Future<Void>> pending = new ArrayList<Future<Void>>();
+        for (List<ZipEntry> batch : this.balance(entries, ZipEntry::getSize)) {
+            pending.add(this.workers.submit(() -> {
+                try (ZipFile zip = new ZipFile(archive)) {
+                    for (ZipEntry entry : batch) {
+                        WorldRestorer.extract(zip, entry, directory);
+                        job.completed(Math.max(0, entry.getSize()));
+                    }
+                }
+                return null;
+            }));
+        }
+        WorldRestorer.await(pending);
+        return names;
+    }
+
+    /**
+     * Split entries into batches of about the same size, one per thread.
+     *
+     * @param entries the entries.
+     * @param size the size of an entry.
+     * @return the batches that aren't empty.
+     */
+    private <T> List<List<T>> balance(Collection<T> entries, ToLongFunction<T> size) {
+        List<T> sorted = new ArrayList<T>(entries);
+        List<List<T>> batches = new ArrayList<List<T>>();
+        long[] loads = new long[this.threads];
+
+        for (int i = 0; i < this.threads; i++) {
+            batches.add(new ArrayList<T>());
+        }
+
+        // Largest entries first, each to the lightest batch.
+        Collections.sort(sorted, Comparator.comparingLong(size).reversed());
+        for (T entry : sorted) {
+            int lightest = 0;
+            for (int i = 1; i < loads.length; i++) {
+                if (loads[i] < loads[lightest])
+                    lightest = i;
+            }
+            batches.get(lightest).add(entry);
+            loads[lightest] += Math.max(1, size.applyAsLong(entry));
+        }
+
+        batches.removeIf(List::isEmpty);
+        return batches;
+    }
+
+    /**
+     * Wait for every task, and rethrow the first failure.
+     */
+    private static void await(List<Future<Void>> pending) throws IOException {
+        IOException failure = null;
+
+        for (Future<Void> future : pending) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = new IOException("Interrupted while restoring", e);
+            } catch (ExecutionException e) {
+                if (failure == null)
+                    failure = (e.getCause() instanceof IOException) ? (IOException) e.getCause() : new IOException(e.getCause());
+            }
+        }
+
+        if (failure != null)
+            throw failure;
+    }
+
+    /**
+     * Resolve an entry's file, never outside of its directory.
+     *
+     * @param directory the directory.
+     * @param name the entry's name.
+     * @return the entry's file.
+     * @throws IOException if the entry's name points outside the directory.
+     */
+    static Path resolve(Path directory, String name) throws IOException {
+        Path file = directory.resolve(name).normalize();
+        if (!file.startsWith(directory))
+            throw new IOException("Invalid entry " + name);
+
+        return file;
+    }
+
+    /**
+     * Extract an entry and verify its checksum.
+     *
+     * @param zip the archive.
+     * @param entry the entry.
+     * @param staging the directory to extract into.
+     * @throws IOException if the entry couldn't be extracted, or is corrupted.
+     */
+    private static void extract(ZipFile zip, ZipEntry entry, Path staging) throws IOException {
+        Path file = WorldRestorer.resolve(staging, entry.getName());
+
+        if (entry.isDirectory()) {
+            Files.createDirectories(file);
+            return;
+        }
+        Files.createDirectories(file.getParent());
+
+        CRC32 crc = new CRC32();
+        long size = 0;
+
+        try (InputStream in = new CheckedInputStream(zip.getInputStream(entry), crc);
+             ReadableByteChannel source = Channels.newChannel(in);
+             FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long transferred;
+            while ((transferred = out.transferFrom(source, size, TRANSFER)) > 0) {
+                size += transferred;
+            }
+        }
+
+        if ((entry.getSize() != -1 && size != entry.getSize()) || (entry.getCrc() != -1 && crc.getValue() != entry.getCrc()))
+            throw new IOException("Corrupted entry " + entry.getName());
+
+        if (entry.getTime() != -1)
+            Files.setLastModifiedTime(file, FileTime.fromMillis(entry.getTime()));
+    }
+
+}
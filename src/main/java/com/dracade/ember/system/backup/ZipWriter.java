@@ -0,0 +1,274 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.system.backup;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+/**
+ * Writes ZIP archives from entries that were already compressed, so that
+ * compression can happen in parallel while the archive itself is written
+ * sequentially. ZIP64 records are added when the archive or one of its
+ * entries is too large for the standard format.
+ *
+ * <p>The archives can be read with {@link java.util.zip.ZipFile}.</p>
+ */
+final class ZipWriter implements Closeable {
+
+    // Compression methods.
+    static final int STORED = 0;
+    static final int DEFLATED = 8;
+
+    // Record signatures.
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    private static final int END = 0x06054b50;
+    private static final int ZIP64_END = 0x06064b50;
+    private static final int ZIP64_LOCATOR = 0x07064b50;
+
+    // Limits of the standard format.
+    private static final long MAX_32 = 0xFFFFFFFFL;
+    private static final int MAX_16 = 0xFFFF;
+
+    // Versions needed to extract.
+    private static final int VERSION = 20;
+    private static final int VERSION_ZIP64 = 45;
+
+    // Entry names are UTF-8.
+    private static final int FLAG_UTF8 = 0x0800;
+
+    private final OutputStream out;
+    private final List<Entry> entries;
+    private final byte[] scratch;
+
+    // The number of bytes written so far.
+    private long position;
+
+    /**
+     * ZipWriter constructor.
+     *
+     * @param out the stream the archive is written to.
+     * @param buffer the size of the write buffer.
+     */
+    ZipWriter(OutputStream out, int buffer) {
+        this.out = new BufferedOutputStream(out, buffer);
+        this.entries = new ArrayList<Entry>();
+        this.scratch = new byte[8];
+    }
+
+    /**
+     * Write an entry.
+     *
+     * @param name the entry's name, using '/' as separator.
+     * @param modified the entry's modification time in milliseconds.
+     * @param method the compression method, {@link #STORED} or
+     *        {@link #DEFLATED}.
+     * @param crc the CRC-32 of the uncompressed data.
+     * @param size the size of the uncompressed data.
+     * @param data the compressed data.
+     * @param length the length of the compressed data.
+     * @throws IOException if the entry couldn't be written.
+     */
+    void write(String name, long modified, int method, long crc, long size, byte[] data, int length) throws IOException {
+        Entry entry = new Entry(name.getBytes(StandardCharsets.UTF_8), Entry.dos(modified), method, crc, size, length, this.position);
+        boolean zip64 = size >= MAX_32 || length >= MAX_32;
+
+        this.int32(LOCAL_HEADER);
+        this.int16(zip64 ? VERSION_ZIP64 : VERSION);
+        this.int16(FLAG_UTF8);
+        this.int16(method);
+        this.int32(entry.time);
+        this.int32(crc);
+        this.int32(zip64 ? MAX_32 : length);
+        this.int32(zip64 ? MAX_32 : size);
+        this.int16(entry.name.length);
+        this.int16(zip64 ? 20 : 0);
+        this.bytes(entry.name, entry.name.length);
+
+        if (zip64) {
+            this.int16(0x0001);
+            this.int16(16);
+            this.int64(size);
+            this.int64(length);
+        }
+
+        this.bytes(data, length);
+        this.entries.add(entry);
+    }
+
+    /**
+     * Write the central directory and close the stream.
+     *
+     * @throws IOException if the archive couldn't be completed.
+     */
+    @Override
+    public void close() throws IOException {
+        long start = this.position;
+
+        for (Entry entry : this.entries) {
+            boolean size64 = entry.size >= MAX_32 || entry.compressed >= MAX_32;
+            boolean offset64 = entry.offset >= MAX_32;
+            int extra = (size64 ? 16 : 0) + (offset64 ? 8 : 0);
+
+            this.int32(CENTRAL_HEADER);
+            this.int16(VERSION_ZIP64);
+            this.int16((size64 || offset64) ? VERSION_ZIP64 : VERSION);
+            this.int16(FLAG_UTF8);
+            this.int16(entry.method);
+            this.int32(entry.time);
+            this.int32(entry.crc);
+            this.int32(size64 ? MAX_32 : entry.compressed);
+            this.int32(size64 ? MAX_32 : entry.size);
+            this.int16(entry.name.length);
+            this.int16((extra > 0) ? extra + 4 : 0);
+            this.int16(0);
+            this.int16(0);
+            this.int16(0);
+            this.int32(0);
+            this.int32(offset64 ? MAX_32 : entry.offset);
+            this.bytes(entry.name, entry.name.length);
+
+            if (extra > 0) {
+                this.int16(0x0001);
+                this.int16(extra);
+                if (size64) {
+                    this.int64(entry.size);
+                    this.int64(entry.compressed);
+                }
+                if (offset64) {
+                    this.int64(entry.offset);
+                }
+            }
+        }
+
+        long size = this.position - start;
+        long count = this.entries.size();
+
+        if (count >= MAX_16 || size >= MAX_32 || start >= MAX_32) {
+            long end = this.position;
+
+            this.int32(ZIP64_END);
+            this.int64(44);
+            this.int16(VERSION_ZIP64);
+            this.int16(VERSION_ZIP64);
+            this.int32(0);
+            this.int32(0);
+            this.int64(count);
+            this.int64(count);
+            this.int64(size);
+            this.int64(start);
+
+            this.int32(ZIP64_LOCATOR);
+            this.int32(0);
+            this.int64(end);
+            this.int32(1);
+        }
+
+        this.int32(END);
+        this.int16(0);
+        this.int16(0);
+        this.int16((int) Math.min(count, MAX_16));
+        this.int16((int) Math.min(count, MAX_16));
+        this.int32(Math.min(size, MAX_32));
+        this.int32(Math.min(start, MAX_32));
+        this.int16(0);
+
+        this.out.close();
+    }
+
+    private void int16(int value) throws IOException {
+        this.scratch[0] = (byte) value;
+        this.scratch[1] = (byte) (value >>> 8);
+        this.bytes(this.scratch, 2);
+    }
+
+    private void int32(long value) throws IOException {
+        for (int i = 0; i < 4; i++) {
+            this.scratch[i] = (byte) (value >>> (8 * i));
+        }
+        this.bytes(this.scratch, 4);
+    }
+
+    private void int64(long value) throws IOException {
+        for (int i = 0; i < 8; i++) {
+            this.scratch[i] = (byte) (value >>> (8 * i));
+        }
+        this.bytes(this.scratch, 8);
+    }
+
+    private void bytes(byte[] bytes, int length) throws IOException {
+        this.out.write(bytes, 0, length);
+        this.position += length;
+    }
+
+    /**
+     * An entry written to the archive.
+     */
+    private static final class Entry {
+
+        private final byte[] name;
+        private final long time;
+        private final int method;
+        private final long crc;
+        private final long size;
+        private final long compressed;
+        private final long offset;
+
+        private Entry(byte[] name, long time, int method, long crc, long size, long compressed, long offset) {
+            this.name = name;
+            this.time = time;
+            this.method = method;
+            this.crc = crc;
+            this.size = size;
+            this.compressed = compressed;
+            this.offset = offset;
+        }
+
+        /**
+         * Convert a time to the MS-DOS format used by ZIP archives.
+         *
+         * @param millis the time in milliseconds.
+         * @return the time in MS-DOS format.
+         */
+        private static long dos(long millis) {
+            Calendar calendar = Calendar.getInstance();
+            calendar.setTimeInMillis(millis);
+
+            int year = calendar.get(Calendar.YEAR);
+            if (year < 1980)
+                return (1 << 21) | (1 << 16);
+
+            return ((long) (year - 1980) << 25) | ((calendar.get(Calendar.MONTH) + 1) << 21) | (calendar.get(Calendar.DAY_OF_MONTH) << 16)
+                    | (calendar.get(Calendar.HOUR_OF_DAY) << 11) | (calendar.get(Calendar.MINUTE) << 5) | (calendar.get(Calendar.SECOND) >> 1);
+        }
+
+    }
+
+}
@@ -0,0 +1,156 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.system;
+
+import com.dracade.ember.core.Arena;
+import com.dracade.ember.core.SpawnPoint;
+import com.dracade.ember.core.WorldReference;
+import com.dracade.ember.core.region.Cuboid;
+import com.flowpowered.math.vector.Vector3d;
+import com.google.gson.Gson;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Compares the size and speed of the JSON and binary formats on arenas, as
+ * synced between servers. Runs outside of the server, from the test classes:
+ *
+ * <pre>java -cp build/classes/test:ember.jar:spongeapi.jar com.dracade.ember.system.SerializerBenchmark [arenas] [rounds]</pre>
+ */
+public final class SerializerBenchmark {
+
+    private SerializerBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int count = (args.length > 0) ? Integer.parseInt(args[0]) : 1000;
+        int rounds = (args.length > 1) ? Integer.parseInt(args[1]) : 20;
+
+        Gson gson = Serializer.instance().gson();
+        BinarySerializer binary = BinarySerializer.instance();
+
+        List<BenchmarkArena> arenas = new ArrayList<BenchmarkArena>();
+        Random random = new Random(0);
+        for (int i = 0; i < count; i++) {
+            arenas.add(new BenchmarkArena(random));
+        }
+
+        long jsonSize = 0;
+        long binarySize = 0;
+        for (BenchmarkArena arena : arenas) {
+            jsonSize += gson.toJson(arena).getBytes("UTF-8").length;
+            binarySize += binary.encode(arena).length;
+        }
+
+        System.out.printf("%d arenas, %d rounds%n", count, rounds);
+        System.out.printf("size     json %8d bytes/arena   binary %8d bytes/arena%n", jsonSize / count, binarySize / count);
+
+        // The first half of the rounds warms the JIT up.
+        long[] times = new long[4];
+        for (int round = 0; round < rounds; round++) {
+            long[] sample = new long[4];
+            long start = System.nanoTime();
+            List<String> json = new ArrayList<String>(count);
+            for (BenchmarkArena arena : arenas) {
+                json.add(gson.toJson(arena));
+            }
+            sample[0] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (String s : json) {
+                gson.fromJson(s, BenchmarkArena.class);
+            }
+            sample[1] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            List<byte[]> encoded = new ArrayList<byte[]>(count);
+            for (BenchmarkArena arena : arenas) {
+                encoded.add(binary.encode(arena));
+            }
+            sample[2] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (byte[] bytes : encoded) {
+                binary.decode(bytes);
+            }
+            sample[3] = System.nanoTime() - start;
+
+            if (round >= rounds / 2) {
+                for (int i = 0; i < times.length; i++) {
+                    times[i] += sample[i];
+                }
+            }
+        }
+
+        long measured = (long) (rounds - rounds / 2) * count;
+        System.out.printf("encode   json %8d ns/arena      binary %8d ns/arena%n", times[0] / measured, times[2] / measured);
+        System.out.printf("decode   json %8d ns/arena      binary %8d ns/arena%n", times[1] / measured, times[3] / measured);
+    }
+
+    /**
+     * An arena with a few fields of its own, like a minigame's arena.
+     */
+    public static final class BenchmarkArena extends Arena {
+
+        private int minPlayers;
+        private int maxPlayers;
+        private String description;
+
+        public BenchmarkArena() {
+        }
+
+        private BenchmarkArena(Random random) {
+            super("Arena " + random.nextInt(1000), SerializerBenchmark.spawn(random, SerializerBenchmark.world()));
+            this.minPlayers = 2 + random.nextInt(4);
+            this.maxPlayers = this.minPlayers + random.nextInt(16);
+            this.description = "A benchmark arena";
+
+            WorldReference world = this.getWorld();
+            for (int i = 0; i < 8; i++) {
+                this.getSpawns().add(SerializerBenchmark.spawn(random, world));
+            }
+            this.setRegion(new Cuboid(random.nextInt(1000), 0, random.nextInt(1000), random.nextInt(1000), 255, random.nextInt(1000)));
+        }
+
+    }
+
+    /**
+     * @return a reference to a world that isn't loaded, which is never
+     *         looked up on the server.
+     */
+    private static WorldReference world() {
+        WorldReference world = Worlds.instance().reference(UUID.randomUUID());
+        world.unloaded();
+        return world;
+    }
+
+    private static SpawnPoint spawn(Random random, WorldReference world) {
+        Vector3d position = new Vector3d(random.nextDouble() * 1000, 64 + random.nextInt(64), random.nextDouble() * 1000);
+        return new SpawnPoint(position, new Vector3d(0, random.nextDouble() * 360, 0), world);
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.system;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TimingWheelTest {
+
+    /**
+     * Advance a wheel holding a single repeating timer, rescheduling it the
+     * same way the engine does, and record the ticks it fired on.
+     *
+     * @param interval the timer's interval in ticks.
+     * @param ticks the number of ticks to advance.
+     * @return the ticks the timer fired on.
+     */
+    private static List<Long> fire(long interval, int ticks) {
+        TimingWheel<Long> wheel = new TimingWheel<Long>();
+        List<Long> fired = new ArrayList<Long>();
+
+        wheel.schedule(interval, 5);
+        for (int i = 0; i < ticks; i++) {
+            wheel.advance(timer -> {
+                // The wheel moves to the next tick before firing.
+                fired.add(wheel.now() - 1);
+                wheel.schedule(timer, timer.getDeadline() + timer.getValue() - wheel.now());
+            });
+        }
+        return fired;
+    }
+
+    private static void assertFixedRate(long interval) {
+        List<Long> fired = fire(interval, (int) (interval * 10));
+
+        Assert.assertEquals("runs at interval " + interval, 10, fired.size());
+        for (int i = 0; i < fired.size(); i++) {
+            Assert.assertEquals("run " + i + " at interval " + interval, 5 + i * interval, (long) fired.get(i));
+        }
+    }
+
+    @Test
+    public void firesOncePerIntervalBelowRotation() {
+        assertFixedRate(63);
+    }
+
+    @Test
+    public void firesOncePerIntervalAtRotation() {
+        assertFixedRate(64);
+    }
+
+    @Test
+    public void firesOncePerIntervalAboveRotation() {
+        assertFixedRate(65);
+    }
+
+    @Test
+    public void cancelStopsTimer() {
+        TimingWheel<Long> wheel = new TimingWheel<Long>();
+        List<Long> fired = new ArrayList<Long>();
+
+        TimingWheel.Timer<Long> timer = wheel.schedule(1L, 10);
+        Assert.assertTrue(wheel.cancel(timer));
+        Assert.assertFalse(wheel.cancel(timer));
+
+        for (int i = 0; i < 20; i++) {
+            wheel.advance(t -> fired.add(wheel.now() - 1));
+        }
+        Assert.assertTrue(fired.isEmpty());
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.system.backup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Compares the throughput and ratio of the archive codecs on the blocks of a
+ * world directory, on a single thread. Runs outside of the server, from the
+ * test classes:
+ *
+ * <pre>java -cp build/classes/test:ember.jar com.dracade.ember.system.backup.CompressionBenchmark &lt;world&gt; [rounds]</pre>
+ */
+public final class CompressionBenchmark {
+
+    private CompressionBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: CompressionBenchmark <world directory> [rounds]");
+            System.exit(1);
+        }
+
+        Path world = Paths.get(args[0]);
+        int rounds = (args.length > 1) ? Integer.parseInt(args[1]) : 3;
+
+        // Split every file into blocks, the way the archiver does.
+        List<byte[]> blocks = new ArrayList<byte[]>();
+        long total = 0;
+        try (Stream<Path> paths = Files.walk(world)) {
+            Iterator<Path> files = paths.filter(Files::isRegularFile).iterator();
+            while (files.hasNext()) {
+                byte[] data = Files.readAllBytes(files.next());
+                for (int offset = 0; offset < data.length; offset += ArchiveWriter.BLOCK) {
+                    blocks.add(Arrays.copyOfRange(data, offset, Math.min(data.length, offset + ArchiveWriter.BLOCK)));
+                }
+                total += data.length;
+            }
+        }
+
+        System.out.printf("%d blocks, %.1f MB, %d rounds%n", blocks.size(), total / 1e6, rounds);
+        for (Compression compression : new Compression[] { Compression.STORE, Compression.DEFLATE_FAST, Compression.LZ4 }) {
+            CompressionBenchmark.run(compression, blocks, total, rounds);
+        }
+    }
+
+    /**
+     * Compress and decompress every block, keeping the best round.
+     */
+    private static void run(Compression compression, List<byte[]> blocks, long total, int rounds) throws IOException {
+        byte[] out = new byte[ArchiveWriter.BLOCK];
+        byte[] back = new byte[ArchiveWriter.BLOCK];
+        long compress = Long.MAX_VALUE;
+        long decompress = Long.MAX_VALUE;
+        long stored = 0;
+        long decoded = 0;
+
+        for (int round = 0; round < rounds; round++) {
+            long compressTime = 0;
+            long decompressTime = 0;
+            stored = 0;
+            decoded = 0;
+
+            for (byte[] block : blocks) {
+                long start = System.nanoTime();
+                int length = compression.compress(block, block.length, out);
+                compressTime += System.nanoTime() - start;
+
+                // Blocks that don't shrink are stored as is.
+                if (length < 0) {
+                    stored += block.length;
+                    continue;
+                }
+                stored += length;
+
+                start = System.nanoTime();
+                compression.decompress(out, length, back, block.length);
+                decompressTime += System.nanoTime() - start;
+                decoded += block.length;
+
+                for (int i = 0; i < block.length; i++) {
+                    if (back[i] != block[i])
+                        throw new IOException(compression.name() + " didn't round trip");
+                }
+            }
+
+            compress = Math.min(compress, compressTime);
+            decompress = Math.min(decompress, decompressTime);
+        }
+
+        // Storing doesn't compress anything, so its throughput is meaningless.
+        System.out.printf("%-13s ratio %5.3f   compress %s   decompress %s%n", compression.name(),
+                (double) stored / Math.max(1, total),
+                (compression != Compression.STORE) ? String.format("%8.1f MB/s", total * 1e3 / Math.max(1, compress)) : "     n/a",
+                (decoded > 0) ? String.format("%8.1f MB/s", decoded * 1e3 / Math.max(1, decompress)) : "     n/a");
+    }
+
+}
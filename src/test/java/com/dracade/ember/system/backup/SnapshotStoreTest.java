@@ -0,0 +1,226 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Dracade
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.dracade.ember.system.backup;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+
+public class SnapshotStoreTest {
+
+    // A save time, in seconds.
+    private static final int SAVED = 1500000000;
+
+    private Path directory;
+    private Path world;
+    private ExecutorService workers;
+    private SnapshotStore store;
+    private Random random;
+
+    @Before
+    public void setUp() throws IOException {
+        this.directory = Files.createTempDirectory("ember-snapshots");
+        this.world = this.directory.resolve("world");
+        this.workers = Executors.newFixedThreadPool(2);
+        this.store = new SnapshotStore(this.directory.resolve("store"), this.workers, Deflater.DEFAULT_COMPRESSION);
+        this.random = new Random(1);
+
+        Files.createDirectories(this.world.resolve("region"));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        this.workers.shutdownNow();
+
+        try (Stream<Path> paths = Files.walk(this.directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    public void restoresChunks() throws IOException {
+        byte[][] records = {this.record(100), null, this.record(5000), this.record(9000)};
+        int[] saved = {SAVED, 0, SAVED - 1, SAVED - 2};
+
+        Path file = this.region(records, saved, SAVED * 1000L + 100);
+        String id = this.store.snapshot("world", this.world, new BackupJob<Void>());
+
+        this.assertChunks(this.restore(id), records, saved);
+        Assert.assertEquals(Files.getLastModifiedTime(file).toMillis(), Files.getLastModifiedTime(this.restored(file)).toMillis());
+    }
+
+    @Test
+    public void rereadsChunkSavedInSameSecond() throws IOException {
+        byte[][] records = {this.record(100), this.record(200)};
+        int[] saved = {SAVED, SAVED - 10};
+
+        this.region(records, saved, SAVED * 1000L + 100);
+        this.store.snapshot("world", this.world, new BackupJob<Void>());
+
+        // The chunk is saved again within the same second, keeping its save
+        // time and location.
+        records[0] = this.record(100);
+        this.region(records, saved, SAVED * 1000L + 600);
+        String id = this.store.snapshot("world", this.world, new BackupJob<Void>());
+
+        this.assertChunks(this.restore(id), records, saved);
+    }
+
+    @Test
+    public void rereadsChunkSavedLater() throws IOException {
+        byte[][] records = {this.record(100), this.record(200)};
+        int[] saved = {SAVED, SAVED - 10};
+
+        this.region(records, saved, SAVED * 1000L + 100);
+        this.store.snapshot("world", this.world, new BackupJob<Void>());
+
+        records[0] = this.record(100);
+        saved[0] = SAVED + 5;
+        this.region(records, saved, (SAVED + 5) * 1000L + 100);
+        String id = this.store.snapshot("world", this.world, new BackupJob<Void>());
+
+        this.assertChunks(this.restore(id), records, saved);
+    }
+
+    @Test
+    public void keepsChunkOverMaximumSectors() throws IOException {
+        byte[][] records = {this.record(100), this.record((RegionIndex.MAX_SECTORS + 45) * RegionIndex.SECTOR), this.record(300)};
+        int[] saved = {SAVED, SAVED, SAVED};
+
+        Path file = this.region(records, saved, SAVED * 1000L + 100);
+        String id = this.store.snapshot("world", this.world, new BackupJob<Void>());
+
+        // The header can't describe the chunk, so the region is restored
+        // exactly as it was.
+        Assert.assertArrayEquals(Files.readAllBytes(file), Files.readAllBytes(this.restore(id)));
+    }
+
+    /**
+     * Create a chunk record of random data.
+     *
+     * @param length the length of the chunk's data.
+     * @return the record, length prefix included.
+     */
+    private byte[] record(int length) {
+        byte[] data = new byte[length];
+        this.random.nextBytes(data);
+
+        ByteBuffer record = ByteBuffer.allocate(5 + length);
+        record.putInt(1 + length).put((byte) 2).put(data);
+        return record.array();
+    }
+
+    /**
+     * Write the world's region file, packing the chunks in order. Chunks
+     * spanning too many sectors keep the maximum sector count, as the game
+     * does.
+     *
+     * @param records the chunks' records, null for missing chunks.
+     * @param saved the chunks' save times.
+     * @param modified the file's modification time.
+     * @return the region file.
+     * @throws IOException if the file couldn't be written.
+     */
+    private Path region(byte[][] records, int[] saved, long modified) throws IOException {
+        Path file = this.world.resolve("region/r.0.0.mca");
+        ByteBuffer header = ByteBuffer.allocate(RegionIndex.HEADER);
+        int sector = RegionIndex.HEADER / RegionIndex.SECTOR;
+
+        Files.deleteIfExists(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            for (int i = 0; i < records.length; i++) {
+                header.putInt(RegionIndex.SECTOR + i * 4, saved[i]);
+                if (records[i] == null)
+                    continue;
+
+                int sectors = (records[i].length + RegionIndex.SECTOR - 1) / RegionIndex.SECTOR;
+                header.putInt(i * 4, (sector << 8) | Math.min(sectors, RegionIndex.MAX_SECTORS));
+
+                ByteBuffer data = ByteBuffer.allocate(sectors * RegionIndex.SECTOR).put(records[i]);
+                data.clear();
+                while (data.hasRemaining()) {
+                    channel.write(data, (long) sector * RegionIndex.SECTOR + data.position());
+                }
+                sector += sectors;
+            }
+
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        }
+
+        Files.setLastModifiedTime(file, FileTime.fromMillis(modified));
+        return file;
+    }
+
+    /**
+     * Restore a snapshot of the world.
+     *
+     * @param id the snapshot's identifier.
+     * @return the restored region file.
+     * @throws IOException if the snapshot couldn't be restored.
+     */
+    private Path restore(String id) throws IOException {
+        this.store.restore("world", id, this.directory.resolve("restored"), new BackupJob<Void>());
+        return this.restored(this.world.resolve("region/r.0.0.mca"));
+    }
+
+    private Path restored(Path file) {
+        return this.directory.resolve("restored").resolve(this.world.relativize(file));
+    }
+
+    private void assertChunks(Path file, byte[][] records, int[] saved) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            RegionIndex index = RegionIndex.read(channel);
+
+            for (int i = 0; i < RegionIndex.CHUNKS; i++) {
+                if (i >= records.length || records[i] == null) {
+                    Assert.assertEquals("location of chunk " + i, 0, index.locations[i]);
+                    continue;
+                }
+
+                Assert.assertEquals("save time of chunk " + i, saved[i], index.timestamps[i]);
+                Assert.assertArrayEquals("record of chunk " + i, records[i], index.chunk(channel, i));
+            }
+        }
+    }
+
+}